@@ -0,0 +1,32 @@
+package mines;
+
+/**
+ * Tailles de plateau communes à tous les benchmarks
+ */
+public enum BoardSize {
+    SMALL(BoardConfig.BEGINNER),
+    EXPERT(BoardConfig.EXPERT),
+    LARGE(new BoardConfig(500, 500, 40_000)),
+    HUGE(new BoardConfig(1000, 1000, 150_000));
+
+    private final BoardConfig config;
+
+    BoardSize(BoardConfig config) {
+        this.config = config;
+    }
+
+    public BoardConfig config() {
+        return config;
+    }
+
+    /**
+     * Première case vide (chiffre 0) du plateau, ou -1 s'il n'y en a pas
+     */
+    static int firstEmptyCell(BoardEngine engine) {
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.getCell(i) == BoardEngine.COVER_FOR_CELL)
+                return i;
+        }
+        return -1;
+    }
+}
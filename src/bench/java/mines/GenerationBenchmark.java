@@ -0,0 +1,49 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Génération d'un plateau 1000x1000 : calcul incrémental des chiffres
+ * comparé au balayage unique et au choix automatique selon la densité.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"0.05", "0.1", "0.15", "0.5", "0.9"})
+    public double density;
+
+    @Param({"INCREMENTAL", "SWEEP", "AUTO"})
+    public BoardEngine.Generation generation;
+
+    private BoardEngine engine;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        engine = new BoardEngine(BoardConfig.withDensity(1000, 1000, density));
+        engine.setGeneration(generation);
+    }
+
+    @Benchmark
+    public int newGame() {
+        engine.newGame(seed++);
+        return engine.getCell(0);
+    }
+}
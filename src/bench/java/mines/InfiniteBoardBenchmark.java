@@ -0,0 +1,66 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exploration d'un plateau infini : un clic sûr par bloc neuf, en ligne
+ * droite. Chaque opération génère au moins un bloc et, une fois le cache
+ * plein, en écrit un sur disque.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class InfiniteBoardBenchmark {
+
+    @Param({"16", "256"})
+    public int cachedChunks;
+
+    private Path directory;
+    private InfiniteBoard board;
+    private final long[] rows = new long[InfiniteBoard.CHUNK_SIZE];
+    private int x;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mines-infinite");
+        board = new InfiniteBoard(1, InfiniteBoard.DEFAULT_MINES_PER_CHUNK, cachedChunks, directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        board.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public boolean explore() {
+        x += InfiniteBoard.CHUNK_SIZE;
+        board.mineRows(x >> 6, 0, rows);
+        // Première case sans mine de la première rangée du bloc
+        int col = Long.numberOfTrailingZeros(~rows[0]);
+        return board.reveal(x + col, 0);
+    }
+}
@@ -0,0 +1,58 @@
+package mines;
+
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Traitement d'un clic par Board.MinesAdapter.mousePressed, clics gauches et
+ * droits aléatoires ; une partie terminée est relancée par le clic suivant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class InputBenchmark {
+
+    private static final int CELL_SIZE = 15;
+
+    @Param({"SMALL", "EXPERT", "HUGE"})
+    public BoardSize size;
+
+    private Board board;
+    private MouseListener adapter;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        board = new Board(new JLabel(), size.config());
+        adapter = board.getMouseListeners()[0];
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public Board mousePressed() {
+        int x = random.nextInt(size.config().getCols()) * CELL_SIZE + 1;
+        int y = random.nextInt(size.config().getRows()) * CELL_SIZE + 1;
+        int button = random.nextInt(8) == 0 ? MouseEvent.BUTTON3 : MouseEvent.BUTTON1;
+        adapter.mousePressed(new MouseEvent(board, MouseEvent.MOUSE_PRESSED, 0L, 0, x, y, 1, false, button));
+        return board;
+    }
+}
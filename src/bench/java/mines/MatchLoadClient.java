@@ -0,0 +1,318 @@
+package mines;
+
+import static mines.MatchProtocol.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de charge pour MatchServer : un seul Selector pilote toutes
+ * les connexions, chacune rejoint des parties tant qu'il en reste à jouer
+ * et clique au hasard, sur une case qu'il voit couverte, quand c'est son
+ * tour. La grille est suivie par un DeltaDecoder alimenté par les STATE.
+ *
+ * Usage : MatchLoadClient [parties [parties simultanées [taille [hôte port]]]],
+ * taille parmi BoardSize (SMALL par défaut). Sans hôte, un serveur est
+ * démarré dans le processus sur un port libre. Affiche parties/s, coups/s,
+ * la latence d'un coup (envoi de REVEAL jusqu'à la réception du MOVED ou de
+ * l'ERROR correspondant) et la taille des deltas reçus.
+ */
+public class MatchLoadClient {
+
+    private static final int PLAYERS = 2;
+
+    private final BoardConfig config;
+    private final Selector selector;
+    private final int join_target;
+    private int joins;
+    private int matches_done;
+    private int connections_open;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private long[] latencies = new long[1 << 16];
+    private int latency_count;
+    private int errors;
+
+    // Messages STATE reçus par les joueurs 0 : images et deltas
+    private long keyframe_count;
+    private long keyframe_bytes;
+    private long delta_count;
+    private long delta_bytes;
+    private int delta_max;
+
+    private MatchLoadClient(BoardConfig config, int matches) throws IOException {
+        this.config = config;
+        this.selector = Selector.open();
+        this.join_target = matches * PLAYERS;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        BoardConfig config = args.length > 2 ? BoardSize.valueOf(args[2]).config() : BoardSize.SMALL.config();
+
+        MatchServer server = null;
+        InetSocketAddress address;
+        if (args.length > 4) {
+            address = new InetSocketAddress(args[3], Integer.parseInt(args[4]));
+        } else {
+            server = new MatchServer(0);
+            address = new InetSocketAddress("127.0.0.1", server.getPort());
+            MatchServer running = server;
+            Thread loop = new Thread(() -> {
+                try {
+                    running.run();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "match-server");
+            loop.setDaemon(true);
+            loop.start();
+        }
+
+        MatchLoadClient client = new MatchLoadClient(config, matches);
+        long start = System.nanoTime();
+        client.run(address, Math.min(concurrent, matches) * PLAYERS);
+        long elapsed = System.nanoTime() - start;
+        client.report(elapsed);
+
+        if (server != null) {
+            System.out.printf("Serveur : %d parties commencées, %d terminées, %d coups%n",
+                    server.getMatchesStarted(), server.getMatchesFinished(), server.getMoveCount());
+            server.close();
+        }
+    }
+
+    private void run(InetSocketAddress address, int connections) throws IOException {
+        for (int i = 0; i < connections; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Player player = new Player(channel);
+            player.key = channel.register(selector, SelectionKey.OP_CONNECT, player);
+            channel.connect(address);
+            connections_open++;
+        }
+
+        while (connections_open > 0) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid())
+                    continue;
+                Player player = (Player) key.attachment();
+                if (key.isConnectable()) {
+                    player.channel.finishConnect();
+                    key.interestOps(SelectionKey.OP_READ);
+                    player.joinOrClose();
+                    continue;
+                }
+                if (key.isReadable())
+                    player.read();
+                if (key.isValid() && key.isWritable())
+                    player.flush();
+            }
+        }
+        selector.close();
+    }
+
+    private void report(long elapsed) {
+        double seconds = elapsed / 1e9;
+        long[] sorted = Arrays.copyOf(latencies, latency_count);
+        Arrays.sort(sorted);
+        System.out.printf("%d parties, %d coups (%d refusés) en %.2f s%n",
+                matches_done, latency_count - errors, errors, seconds);
+        System.out.printf("%.0f parties/s, %.0f coups/s%n",
+                matches_done / seconds, (latency_count - errors) / seconds);
+        if (latency_count > 0)
+            System.out.printf("Latence d'un coup : p50 %.1f µs, p99 %.1f µs, max %.1f µs%n",
+                    percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3,
+                    sorted[sorted.length - 1] / 1e3);
+        if (delta_count > 0)
+            System.out.printf("Deltas : %.1f octets en moyenne, %d au plus ; images : %.1f octets en moyenne%n",
+                    (double) delta_bytes / delta_count, delta_max,
+                    keyframe_count == 0 ? 0.0 : (double) keyframe_bytes / keyframe_count);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    private void recordLatency(long nanos) {
+        if (latency_count == latencies.length)
+            latencies = Arrays.copyOf(latencies, latency_count * 2);
+        latencies[latency_count++] = nanos;
+    }
+
+    /**
+     * Un joueur simulé : une connexion, les cases qu'il sait découvertes
+     */
+    private final class Player {
+        final SocketChannel channel;
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        final ByteBuffer out = ByteBuffer.allocate(256);
+        final DeltaDecoder view = new DeltaDecoder();
+        SelectionKey key;
+        int index;
+        int pending_cell = -1;
+        long sent_at;
+
+        Player(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void joinOrClose() throws IOException {
+            if (joins == join_target) {
+                key.cancel();
+                channel.close();
+                connections_open--;
+                return;
+            }
+            joins++;
+            out.put(JOIN).putInt(config.getRows()).putInt(config.getCols())
+                    .putInt(config.getMines()).put((byte) PLAYERS);
+            flush();
+        }
+
+        /**
+         * Clique sur une case couverte sans drapeau
+         */
+        void play() throws IOException {
+            int cell;
+            do {
+                cell = random.nextInt(view.getAllCells());
+            } while (view.getCell(cell) != DeltaEncoder.CELL_COVERED);
+            pending_cell = cell;
+            sent_at = System.nanoTime();
+            out.put(REVEAL).putInt(cell);
+            flush();
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0)
+                throw new IOException("Connexion fermée par le serveur");
+            in.flip();
+            while (in.hasRemaining()) {
+                byte type = in.get(in.position());
+                int size = messageBytes(type);
+                if (size < 0)
+                    throw new IOException("Message inconnu: " + type);
+                if (in.remaining() < size)
+                    break;
+                if (type == STATE) {
+                    int length = in.getInt(in.position() + 1);
+                    if (in.remaining() < size + length) {
+                        if (in.capacity() < size + length)
+                            grow(size + length);
+                        break;
+                    }
+                }
+                in.get();
+                handle(type);
+            }
+            in.compact();
+        }
+
+        private void grow(int bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(in.capacity() * 2, bytes));
+            larger.put(in);
+            larger.flip();
+            in = larger;
+        }
+
+        private void handle(byte type) throws IOException {
+            switch (type) {
+                case JOINED:
+                    in.getInt();
+                    index = in.get();
+                    break;
+                case STARTED:
+                    // L'image suit : on ne joue qu'à sa réception
+                    in.get();
+                    break;
+                case STATE: {
+                    int length = in.getInt();
+                    int end = in.position() + length;
+                    int limit = in.limit();
+                    boolean first = !view.isReady() || in.get(in.position()) == DeltaEncoder.KEYFRAME;
+                    view.apply(in.limit(end));
+                    in.limit(limit).position(end);
+                    if (index == 0) {
+                        if (first) {
+                            keyframe_count++;
+                            keyframe_bytes += length;
+                        } else {
+                            delta_count++;
+                            delta_bytes += length;
+                            delta_max = Math.max(delta_max, length);
+                        }
+                    }
+                    if (first && view.getState() == STATE_PLAYING && view.getCurrentPlayer() == index)
+                        play();
+                    break;
+                }
+                case MOVED: {
+                    int mover = in.get();
+                    in.get();
+                    int cell = in.getInt();
+                    in.get();
+                    in.getInt();
+                    int next = in.get();
+                    byte state = in.get();
+                    if (mover == index && cell == pending_cell)
+                        answered();
+                    if (state != STATE_PLAYING)
+                        ended();
+                    else if (next == index)
+                        play();
+                    break;
+                }
+                case ABANDONED:
+                    ended();
+                    break;
+                case ERROR: {
+                    byte code = in.get();
+                    answered();
+                    errors++;
+                    if (code != ERROR_NO_EFFECT)
+                        throw new IOException("Erreur du serveur: " + code);
+                    // Case ouverte par propagation : on en essaie une autre
+                    play();
+                    break;
+                }
+                default:
+                    throw new IOException("Message inattendu: " + type);
+            }
+        }
+
+        private void answered() {
+            recordLatency(System.nanoTime() - sent_at);
+            pending_cell = -1;
+        }
+
+        private void ended() throws IOException {
+            if (index == 0)
+                matches_done++;
+            joinOrClose();
+        }
+
+        void flush() throws IOException {
+            if (!channel.isOpen())
+                return;
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latence de génération d'une partie sans devinette (percentiles p50/p99),
+ * tous les cœurs étant utilisés par le générateur
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class NoGuessBenchmark {
+
+    @Param({"SMALL", "EXPERT"})
+    public BoardSize size;
+
+    private NoGuessGenerator generator;
+    private BoardEngine engine;
+
+    @Setup
+    public void setUp() {
+        generator = new NoGuessGenerator(size.config());
+        engine = new BoardEngine(size.config());
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("candidats: " + generator.getCandidateCount()
+                + ", grilles: " + generator.getGeneratedCount()
+                + ", hors budget: " + generator.getFallbackCount());
+        generator.shutdown();
+    }
+
+    @Benchmark
+    public boolean generate() {
+        return generator.generate(engine);
+    }
+}
@@ -0,0 +1,54 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Propagation en mode multijoueur : chaque case découverte est attribuée au
+ * joueur courant. À lancer avec -prof gc pour le débit d'allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class OwnershipBenchmark {
+
+    private MultiplayerBoard board;
+    private int target;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new MultiplayerBoard(new JLabel(), true, 2, new BoardConfig(300, 300, 2_000));
+    }
+
+    @Setup(Level.Invocation)
+    public void newBoard() {
+        do {
+            board.newGame();
+            // Mines posées tout de suite : seule la propagation est mesurée
+            board.getEngine().newGame(seed++);
+            target = BoardSize.firstEmptyCell(board.getEngine());
+        } while (target < 0);
+    }
+
+    @Benchmark
+    public boolean floodFillWithOwners() {
+        return board.getEngine().reveal(target);
+    }
+}
@@ -0,0 +1,84 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coût de newGame() vu du thread appelant : moteur pris dans la réserve
+ * (remplie entre deux parties, comme pendant le jeu) contre génération directe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PoolBenchmark {
+
+    @Param({"EXPERT", "EXPERT_NO_GUESS", "HUGE"})
+    public String mode;
+
+    private BoardConfig config;
+    private boolean noGuess;
+    private BoardPool pool;
+    private BoardEngine engine;
+    private NoGuessGenerator generator;
+
+    @Setup
+    public void setUp() {
+        noGuess = mode.endsWith("_NO_GUESS");
+        config = BoardSize.valueOf(mode.replace("_NO_GUESS", "")).config();
+        pool = new BoardPool(BoardPool.DEFAULT_CAPACITY);
+        engine = pool.take(config, noGuess).getEngine();
+        if (noGuess)
+            generator = new NoGuessGenerator(config);
+    }
+
+    /**
+     * Laisse le producteur préparer au moins une partie, comme le ferait
+     * le temps de jeu entre deux clics de fin de partie
+     */
+    @Setup(Level.Invocation)
+    public void waitForRefill() throws InterruptedException {
+        while (pool.getReadyCount(config, noGuess) == 0)
+            Thread.sleep(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("réserve: " + pool.getHitCount() + " succès, " + pool.getMissCount() + " échecs, "
+                + pool.getFallbackCount() + " non vérifiées, " + pool.getDiscardCount() + " jetées");
+        pool.shutdown();
+        if (generator != null)
+            generator.shutdown();
+    }
+
+    @Benchmark
+    public BoardEngine pooled() {
+        pool.recycle(engine, noGuess);
+        engine = pool.take(config, noGuess).getEngine();
+        return engine;
+    }
+
+    @Benchmark
+    public BoardEngine direct() {
+        if (generator != null)
+            generator.generate(engine);
+        else
+            engine.newGame();
+        return engine;
+    }
+}
@@ -0,0 +1,84 @@
+package mines;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calcul des probabilités sur des positions expert en cours de partie,
+ * avec un seul thread puis avec tous les cœurs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ProbabilityBenchmark {
+
+    private static final int POSITIONS = 32;
+
+    /** 0 : autant de threads que de cœurs */
+    @Param({"1", "0"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private ProbabilityCalculator calculator;
+    private BoardEngine[] positions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pool = threads == 0 ? new ForkJoinPool() : new ForkJoinPool(threads);
+        calculator = new ProbabilityCalculator(pool);
+
+        positions = new BoardEngine[POSITIONS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int p = 0; p < POSITIONS; p++)
+            positions[p] = position(random.nextLong(), random);
+    }
+
+    /**
+     * Partie expert ouverte sur une case vide, puis quelques cases sûres
+     * découvertes au hasard pour obtenir une frontière large et morcelée
+     */
+    private static BoardEngine position(long seed, SplittableRandom random) {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(seed);
+        int start = BoardSize.firstEmptyCell(engine);
+        if (start >= 0)
+            engine.reveal(start);
+
+        for (int k = 0; k < 40; k++) {
+            int cell = random.nextInt(engine.getAllCells());
+            if (engine.isCovered(cell) && engine.getCell(cell) != BoardEngine.COVERED_MINE_CELL)
+                engine.reveal(cell);
+        }
+        return engine;
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double[] compute() {
+        BoardEngine engine = positions[next];
+        next = (next + 1) % POSITIONS;
+        return calculator.compute(engine);
+    }
+}
@@ -0,0 +1,106 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Relecture d'un journal : débit en coups par seconde sur des parties expert
+ * à deux joueurs, et accès direct à un coup d'une longue partie 1000x1000
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ReplayBenchmark {
+
+    private static final int MOVES = 100_000;
+    private static final int LONG_GAME_MOVES = 200_000;
+
+    private GameReplay expert;
+    private GameReplay huge;
+    private SplittableRandom random = new SplittableRandom(5);
+
+    @Setup
+    public void setUp() throws IOException {
+        expert = record(BoardConfig.EXPERT, 2, MOVES);
+        huge = record(BoardSize.HUGE.config(), 2, LONG_GAME_MOVES);
+        huge.seek(0, 0); // images prises une fois pour toutes
+    }
+
+    /**
+     * Joue des parties en ne cliquant que sur des cases sûres (et quelques
+     * drapeaux) jusqu'à avoir moves coups dans le journal
+     */
+    private static GameReplay record(BoardConfig config, int players, int moves) throws IOException {
+        Path file = Files.createTempFile("mines", ".mjnl");
+        Files.delete(file);
+        SplittableRandom random = new SplittableRandom(11);
+
+        try (MoveJournal journal = MoveJournal.open(file, config)) {
+            BoardEngine engine = new BoardEngine(config);
+            MultiplayerGame game = new MultiplayerGame(engine, players);
+            int recorded = 0;
+            while (recorded < moves) {
+                long seed = random.nextLong();
+                engine.newGame(seed);
+                game.reset();
+                journal.startGame(MoveJournal.MODE_RANDOM, seed, players);
+
+                while (engine.isInGame() && recorded < moves) {
+                    int cell = random.nextInt(config.getAllCells());
+                    if (!engine.isCovered(cell))
+                        continue;
+                    int player = game.getCurrentPlayer();
+                    if (engine.getCell(cell) == BoardEngine.COVERED_MINE_CELL || random.nextInt(8) == 0) {
+                        if (engine.isMarked(cell))
+                            engine.unmark(cell);
+                        else
+                            engine.mark(cell);
+                        journal.recordMove(MoveJournal.BUTTON_RIGHT, cell, player);
+                    } else if (!engine.isMarked(cell)) {
+                        game.reveal(cell);
+                        journal.recordMove(MoveJournal.BUTTON_LEFT, cell, player);
+                    } else {
+                        continue;
+                    }
+                    recorded++;
+                }
+            }
+        }
+
+        GameReplay replay = GameReplay.load(file);
+        Files.delete(file);
+        return replay;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public int replayExpert() {
+        int score = 0;
+        for (int g = 0; g < expert.getGameCount(); g++)
+            score += expert.replay(g).getScore(0);
+        return score;
+    }
+
+    @Benchmark
+    public MultiplayerGame seekHuge() {
+        return huge.seek(0, random.nextInt(huge.getMoveCount(0) + 1));
+    }
+}
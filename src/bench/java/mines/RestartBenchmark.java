@@ -0,0 +1,51 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coût d'un redémarrage : génération complète contre partie différée
+ * (mines posées au premier clic seulement)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RestartBenchmark {
+
+    @Param({"SMALL", "EXPERT", "HUGE"})
+    public BoardSize size;
+
+    private BoardEngine engine;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        engine = new BoardEngine(size.config());
+    }
+
+    @Benchmark
+    public BoardEngine eager() {
+        engine.newGame(seed++);
+        return engine;
+    }
+
+    @Benchmark
+    public BoardEngine deferred() {
+        engine.newGameDeferred(seed++);
+        return engine;
+    }
+}
@@ -0,0 +1,53 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Clic sur une case vide d'un plateau neuf : reveal() puis find_empty_cells()
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RevealBenchmark {
+
+    @Param({"SMALL", "EXPERT", "HUGE"})
+    public BoardSize size;
+
+    private BoardEngine engine;
+    private long seed;
+    private int target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new BoardEngine(size.config());
+    }
+
+    @Setup(Level.Invocation)
+    public void newBoard() {
+        do {
+            engine.newGame(seed++);
+            target = BoardSize.firstEmptyCell(engine);
+        } while (target < 0);
+    }
+
+    @Benchmark
+    public boolean revealOpening() {
+        return engine.reveal(target);
+    }
+}
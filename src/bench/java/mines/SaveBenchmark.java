@@ -0,0 +1,71 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sauvegarde et chargement d'une partie multijoueur de 10^7 cases
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class SaveBenchmark {
+
+    private GameFile game;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        BoardConfig config = new BoardConfig(10_000, 1_000, 1_500_000);
+        BoardEngine engine = new BoardEngine(config);
+        engine.newGame(7);
+
+        SplittableRandom random = new SplittableRandom(3);
+        byte[] owners = new byte[config.getAllCells()];
+        for (int i = 0; i < owners.length; i++)
+            owners[i] = (byte) (random.nextInt(5) - 1);
+        for (int k = 0; k < 2_000; k++) {
+            int cell = random.nextInt(config.getAllCells());
+            if (engine.isCovered(cell) && engine.getCell(cell) != BoardEngine.COVERED_MINE_CELL)
+                engine.reveal(cell);
+        }
+
+        game = new GameFile(engine, owners, new int[] {12, -5, 3}, 2);
+        file = Files.createTempFile("mines", ".sav");
+        game.save(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        game.save(file);
+        return file;
+    }
+
+    @Benchmark
+    public GameFile load() throws IOException {
+        return GameFile.load(file);
+    }
+}
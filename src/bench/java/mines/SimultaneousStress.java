@@ -0,0 +1,109 @@
+package mines;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Débit du mode simultané : des threads joueurs cliquent (et posent des
+ * drapeaux) sur toute la grille en même temps jusqu'à la victoire. Les
+ * propriétés (aucune case perdue ni prise deux fois, scores exacts) sont
+ * vérifiées par SimultaneousGameTest ; ici, seulement temps et clics/s.
+ *
+ * Usage : SimultaneousStress [threads [parties [taille]]], 64 threads,
+ * 20 parties et BoardSize.LARGE par défaut.
+ */
+public class SimultaneousStress {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        BoardConfig config = args.length > 2 ? BoardSize.valueOf(args[2]).config() : BoardSize.LARGE.config();
+
+        long clicks = 0;
+        long nanos = 0;
+        for (int g = 0; g < games; g++) {
+            SimultaneousGame game = new SimultaneousGame(config, threads, g);
+            Player[] players = new Player[threads];
+            CyclicBarrier start = new CyclicBarrier(threads);
+            for (int p = 0; p < threads; p++)
+                players[p] = new Player(game, p, start);
+
+            long begin = System.nanoTime();
+            for (Player player : players)
+                player.start();
+            for (Player player : players)
+                player.join();
+            nanos += System.nanoTime() - begin;
+
+            for (Player player : players) {
+                if (player.failure != null)
+                    throw new AssertionError("Joueur " + player.index, player.failure);
+                clicks += player.clicks;
+            }
+        }
+
+        System.out.printf("%d parties %s, %d threads%n", games, config, threads);
+        System.out.printf("%.1f ms par partie, %.0f clics/s (%d processeurs)%n",
+                nanos / 1e6 / games, clicks / (nanos / 1e9), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parcourt toute la grille dans un ordre qui lui est propre, en recommençant
+     * tant que la partie n'est pas gagnée ; un clic sur 16 est une paire
+     * pose/retrait de drapeau
+     */
+    private static final class Player extends Thread {
+        final SimultaneousGame game;
+        final int index;
+        final CyclicBarrier start;
+        long clicks;
+        Throwable failure;
+
+        Player(SimultaneousGame game, int index, CyclicBarrier start) {
+            this.game = game;
+            this.index = index;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                play();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private void play() throws Exception {
+            int cells = game.getAllCells();
+            SplittableRandom random = new SplittableRandom(index * 31L + cells);
+            int step = coprimeStep(cells, random);
+            start.await();
+
+            while (!game.isWon()) {
+                int position = random.nextInt(cells);
+                for (int k = 0; k < cells && !game.isWon(); k++, position = (int) ((position + (long) step) % cells)) {
+                    clicks++;
+                    if ((k & 15) == 0) {
+                        if (game.toggleFlag(position))
+                            game.toggleFlag(position);
+                        continue;
+                    }
+                    game.reveal(index, position);
+                }
+            }
+        }
+
+        private static int coprimeStep(int cells, SplittableRandom random) {
+            while (true) {
+                int step = 1 + random.nextInt(cells - 1);
+                if (gcd(step, cells) == 1)
+                    return step;
+            }
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package mines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Débit du solveur en plateaux joués par seconde (génération comprise),
+ * avec le taux de victoire et le nombre de devinettes en compteurs annexes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SolverBenchmark {
+
+    @Param({"SMALL", "EXPERT"})
+    public BoardSize size;
+
+    private BoardEngine engine;
+    private Solver solver;
+    private long seed;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long won;
+        public long guesses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            won = 0;
+            guesses = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        engine = new BoardEngine(size.config());
+        solver = new Solver(engine);
+    }
+
+    @Benchmark
+    public boolean solveBoard(Outcome outcome) {
+        engine.newGame(seed++);
+        boolean won = solver.solve(true);
+        if (won)
+            outcome.won++;
+        outcome.guesses += solver.getGuessCount();
+        return won;
+    }
+}
@@ -0,0 +1,95 @@
+package mines;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JLabel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Défilement d'un plateau de 10000x10000 : chaque opération redessine une vue
+ * entière de 1280x800 décalée de quelques pixels (le pire cas, le JViewport
+ * ne redessinant d'habitude que la bande découverte). 60 images/s demandent
+ * moins de 16,7 ms par opération à chaque niveau de zoom.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+public class ViewportBenchmark {
+
+    private static final BoardConfig CONFIG = new BoardConfig(10_000, 10_000, 12_000_000);
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+    private static final int STEP = 37;
+
+    // 0 : tuiles, 1 à 4 : 8 à 1 pixel par case, au-delà : plusieurs cases par pixel
+    @Param({"0", "2", "4", "6", "11"})
+    public int zoom;
+
+    private BoardEngine engine;
+    private BoardRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private Dimension size;
+    private int x;
+    private int y;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Board board = new Board(new JLabel(), CONFIG);
+        engine = board.getEngine();
+        renderer = board.getRenderer();
+        engine.newGame(1);
+        // Des clics au hasard pour mêler cases couvertes et découvertes
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) {
+            int position = random.nextInt(engine.getAllCells());
+            if (engine.getCell(position) != BoardEngine.COVERED_MINE_CELL)
+                engine.reveal(position);
+        }
+        renderer.setZoom(zoom);
+        renderer.updateAll(engine);
+        size = renderer.getBoardSize(engine);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+        System.out.println("Zoom " + zoom + ": plateau " + size.width + "x" + size.height + " pixels, moyenne "
+                + renderer.getAverageFrameNanos() / 1000 + " us");
+    }
+
+    @Benchmark
+    public BufferedImage pan() {
+        x = (x + STEP) % Math.max(1, size.width - WIDTH);
+        y = (y + STEP / 2) % Math.max(1, size.height - HEIGHT);
+        Rectangle clip = new Rectangle(x, y, WIDTH, HEIGHT);
+        graphics.translate(-x, -y);
+        graphics.setClip(clip);
+        renderer.paint(graphics, engine, clip);
+        graphics.translate(x, y);
+        return image;
+    }
+}
@@ -1,332 +1,327 @@
 package mines;
 
+import static mines.BoardEngine.*;
+
 import java.awt.Graphics;
-import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 
-public class Board extends JPanel {
+public class Board extends JPanel implements SavableBoard {
     private static final long serialVersionUID = 6195235521361212179L;
+
+    // Indices calculés hors de l'EDT, un à la fois pour tout le processus
+    private static final ExecutorService HINT_SOLVER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "hint-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
     
-    private final int NUM_IMAGES = 13;
-    private final int CELL_SIZE = 15;
-
-    private final int COVER_FOR_CELL = 10;
-    private final int MARK_FOR_CELL = 10;
-    private final int EMPTY_CELL = 0;
-    private final int MINE_CELL = 9;
-    private final int COVERED_MINE_CELL = MINE_CELL + COVER_FOR_CELL;
-    private final int MARKED_MINE_CELL = COVERED_MINE_CELL + MARK_FOR_CELL;
-
-    private final int DRAW_MINE = 9;
-    private final int DRAW_COVER = 10;
-    private final int DRAW_MARK = 11;
-    private final int DRAW_WRONG_MARK = 12;
-
-    private int[] field;
-    private boolean inGame;
-    private int mines_left;
-    private Image[] img;
-    private int mines = 40;
-    private int rows = 16;
-    private int cols = 16;
-    private int all_cells;
+    private BoardConfig config;
+    private final BoardPool pool;
+    private BoardEngine engine;
+    private BoardRenderer renderer;
+    private BoardViewport viewport;
+    // Copie de la position et solveur, réservés au thread des indices
+    private BoardEngine hint_engine;
+    private Solver solver;
+    private Solver.Move hint;
+    private boolean hint_pending;
+    // Change à chaque coup : un indice calculé pour une autre position est ignoré
+    private int position_stamp;
+    private boolean noGuess;
+    // Partie sans devinette hors budget : ouverte au centre mais non vérifiée
+    private boolean unverified;
+    private MoveJournal journal;
     private JLabel statusbar;
+    // Clic en attente de dessin (métriques)
+    private long input_nanos;
 
 
     public Board(JLabel statusbar) {
-        this.statusbar = statusbar;
-        img = new Image[NUM_IMAGES];
+        this(statusbar, BoardConfig.INTERMEDIATE);
+    }
 
-        // Chargement sécurisé des images avec plusieurs chemins possibles
-        for (int i = 0; i < NUM_IMAGES; i++) {
-            img[i] = loadImage(i);
-        }
+    public Board(JLabel statusbar, BoardConfig config) {
+        this.statusbar = statusbar;
+        this.config = config;
+        this.pool = BoardPool.shared();
+        // Tuiles chargées une fois pour tout le processus
+        renderer = new BoardRenderer(TileSet.shared());
 
         setDoubleBuffered(true);
         addMouseListener(new MinesAdapter());
         newGame();
+        viewport = new BoardViewport(this, renderer, this::getEngine);
     }
 
     /**
-     * Charge une image avec plusieurs chemins de recherche
+     * Mode aléatoire : mines posées au premier clic, recommencer est immédiat.
+     * Sans devinette : partie prise dans la réserve (générée ici seulement si
+     * elle est vide) ; si le générateur n'a pas pu la vérifier à temps, elle
+     * est signalée comme telle et journalisée en MODE_OPENED.
      */
-    private Image loadImage(int index) {
-        String[] paths = {
-            "/" + index + ".gif",              // Racine du classpath
-            "/images/" + index + ".gif",       // Dans dossier images
-            "images/" + index + ".gif",        // Relatif
-            index + ".gif"                     // Direct
-        };
-        
-        for (String path : paths) {
+    public void newGame() {
+        if (noGuess) {
+            if (engine != null)
+                pool.recycle(engine, true);
+            BoardPool.Deal deal = pool.take(config, true);
+            engine = deal.getEngine();
+            unverified = !deal.isValidated();
+        } else {
+            if (engine == null)
+                engine = new BoardEngine(config);
+            engine.newGameDeferred();
+            unverified = false;
+        }
+        position_stamp++;
+        hint = null;
+        renderer.updateAll(engine);
+        engine.clearChanges(); // le plateau entier sera redessiné
+        if (unverified)
+            statusbar.setText(engine.getMinesLeft() + " (partie non vérifiée)");
+        else
+            statusbar.setText(Integer.toString(engine.getMinesLeft()));
+        recordGame();
+    }
+
+    /**
+     * Enregistre désormais chaque partie et chaque coup dans ce journal
+     * (même configuration que le plateau, avant le premier coup) ; null pour arrêter
+     */
+    public void setJournal(MoveJournal journal) {
+        if (journal != null && !journal.getConfig().equals(config))
+            throw new IllegalArgumentException("Journal d'une autre configuration: " + journal.getConfig());
+        this.journal = journal;
+        recordGame();
+    }
+
+    private void recordGame() {
+        // Après le chargement d'une autre taille de plateau, rien n'est rejouable
+        if (journal != null && journal.getConfig().equals(config)) {
             try {
-                java.net.URL imgURL = getClass().getResource(path);
-                if (imgURL != null) {
-                    return (new ImageIcon(imgURL)).getImage();
-                }
-            } catch (Exception e) {
-                // Continuer avec le prochain chemin
+                journal.startGame(getJournalMode(), engine.getSeed(), 1);
+            } catch (IOException e) {
+                journalFailed(e);
             }
         }
-        
-        // Si aucune image trouvée, créer un placeholder
-        System.err.println("ATTENTION: Image " + index + ".gif non trouvée dans le classpath");
-        return createPlaceholderImage(index);
     }
 
     /**
-     * Crée une image de remplacement en cas d'échec de chargement
+     * Mode de la partie réellement servie
      */
-    private Image createPlaceholderImage(int index) {
-        BufferedImage placeholder = new BufferedImage(CELL_SIZE, CELL_SIZE, BufferedImage.TYPE_INT_RGB);
-        Graphics g = placeholder.getGraphics();
-        
-        // Couleur de fond selon le type
-        if (index == DRAW_MINE) {
-            g.setColor(java.awt.Color.RED);
-            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
-            g.setColor(java.awt.Color.BLACK);
-            g.drawString("*", 5, 12);
-        } else if (index == DRAW_COVER) {
-            g.setColor(java.awt.Color.LIGHT_GRAY);
-            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
-            g.setColor(java.awt.Color.GRAY);
-            g.drawRect(0, 0, CELL_SIZE - 1, CELL_SIZE - 1);
-        } else if (index == DRAW_MARK) {
-            g.setColor(java.awt.Color.YELLOW);
-            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
-            g.setColor(java.awt.Color.RED);
-            g.drawString("F", 4, 12);
-        } else if (index == DRAW_WRONG_MARK) {
-            g.setColor(java.awt.Color.ORANGE);
-            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
-            g.setColor(java.awt.Color.BLACK);
-            g.drawString("X", 4, 12);
-        } else {
-            // Cases numérotées (0-8)
-            g.setColor(java.awt.Color.WHITE);
-            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
-            g.setColor(java.awt.Color.BLACK);
-            g.drawRect(0, 0, CELL_SIZE - 1, CELL_SIZE - 1);
-            if (index > 0 && index < 9) {
-                // Couleurs différentes selon le chiffre
-                java.awt.Color[] colors = {
-                    java.awt.Color.BLACK,  // 0
-                    java.awt.Color.BLUE,   // 1
-                    java.awt.Color.GREEN,  // 2
-                    java.awt.Color.RED,    // 3
-                    new java.awt.Color(0, 0, 128),    // 4 - Bleu foncé
-                    new java.awt.Color(128, 0, 0),    // 5 - Rouge foncé
-                    java.awt.Color.CYAN,   // 6
-                    java.awt.Color.BLACK,  // 7
-                    java.awt.Color.GRAY    // 8
-                };
-                g.setColor(colors[index]);
-                g.drawString(String.valueOf(index), 4, 12);
-            }
+    private int getJournalMode() {
+        if (!noGuess)
+            return MoveJournal.MODE_DEFERRED;
+        return unverified ? MoveJournal.MODE_OPENED : MoveJournal.MODE_NO_GUESS;
+    }
+
+    private void record(int button, int position) {
+        if (journal == null)
+            return;
+        try {
+            journal.recordMove(button, position, 0);
+            if (!engine.isInGame())
+                journal.sync();
+        } catch (IOException e) {
+            journalFailed(e);
         }
-        
-        g.dispose();
-        return placeholder;
     }
 
+    private void journalFailed(IOException e) {
+        System.err.println("Journal désactivé: " + e.getMessage());
+        journal = null;
+    }
 
-    public void newGame() {
-        Random random;
-        int current_col;
-        int i = 0;
-        int position = 0;
-        int cell = 0;
-
-        random = new Random();
-        inGame = true;
-        mines_left = mines;
-
-        all_cells = rows * cols;
-        field = new int[all_cells];
-        
-        for (i = 0; i < all_cells; i++)
-            field[i] = COVER_FOR_CELL;
-
-        statusbar.setText(Integer.toString(mines_left));
-
-        i = 0;
-        while (i < mines) {
-            position = (int) (all_cells * random.nextDouble());
-
-            if ((position < all_cells) &&
-                (field[position] != COVERED_MINE_CELL)) {
-
-                current_col = position % cols;
-                field[position] = COVERED_MINE_CELL;
-                i++;
-
-                if (current_col > 0) { 
-                    cell = position - 1 - cols;
-                    if (cell >= 0)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-                    cell = position - 1;
-                    if (cell >= 0)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-
-                    cell = position + cols - 1;
-                    if (cell < all_cells)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-                }
 
-                cell = position - cols;
-                if (cell >= 0)
-                    if (field[cell] != COVERED_MINE_CELL)
-                        field[cell] += 1;
-                cell = position + cols;
-                if (cell < all_cells)
-                    if (field[cell] != COVERED_MINE_CELL)
-                        field[cell] += 1;
-
-                if (current_col < (cols - 1)) {
-                    cell = position - cols + 1;
-                    if (cell >= 0)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-                    cell = position + cols + 1;
-                    if (cell < all_cells)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-                    cell = position + 1;
-                    if (cell < all_cells)
-                        if (field[cell] != COVERED_MINE_CELL)
-                            field[cell] += 1;
-                }
+    /**
+     * Active le mode « sans devinette » (partie ouverte au centre, résoluble
+     * sans hasard) et commence une nouvelle partie
+     */
+    public void setNoGuess(boolean noGuess) {
+        if (engine != null && this.noGuess)
+            pool.recycle(engine, true);
+        engine = null;
+        this.noGuess = noGuess;
+        newGame();
+        repaint();
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    /**
+     * Vrai si la partie sans devinette en cours n'a pas pu être vérifiée
+     * (budget du générateur dépassé) : il faudra peut-être deviner
+     */
+    public boolean isUnverified() {
+        return unverified;
+    }
+
+    @Override
+    public void save(Path path) throws IOException {
+        new GameFile(engine).save(path);
+    }
+
+    /**
+     * Reprend une partie sauvegardée, éventuellement d'une autre taille
+     */
+    @Override
+    public void load(Path path) throws IOException {
+        GameFile game = GameFile.load(path);
+        if (engine != null && noGuess)
+            pool.recycle(engine, true);
+        engine = game.getEngine();
+        config = engine.getConfig();
+        unverified = false;
+        position_stamp++;
+        hint = null;
+        if (journal != null) {
+            try {
+                journal.gameLoaded();
+            } catch (IOException e) {
+                journalFailed(e);
             }
         }
-    }
 
+        renderer.updateAll(engine);
+        engine.clearChanges();
+        statusbar.setText(Integer.toString(engine.getMinesLeft()));
+        showResult();
+        viewport.resized();
+        repaint();
+    }
 
     public void find_empty_cells(int j) {
-        int current_col = j % cols;
-        int cell;
-
-        if (current_col > 0) { 
-            cell = j - cols - 1;
-            if (cell >= 0)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
-
-            cell = j - 1;
-            if (cell >= 0)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
+        engine.find_empty_cells(j);
+    }
 
-            cell = j + cols - 1;
-            if (cell < all_cells)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
+    /**
+     * Redessine uniquement le rectangle des cases modifiées par le dernier coup,
+     * ou tout le plateau si la partie vient de se terminer (mines à afficher)
+     */
+    private void repaintChanges() {
+        if (!engine.isInGame()) {
+            renderer.updateAll(engine);
+            repaint();
+        } else if (engine.hasChanges()) {
+            renderer.update(engine, engine.getChangedMinRow(), engine.getChangedMaxRow(),
+                    engine.getChangedMinCol(), engine.getChangedMaxCol());
+            repaint(renderer.getCellBounds(engine.getChangedMinRow(), engine.getChangedMaxRow(),
+                    engine.getChangedMinCol(), engine.getChangedMaxCol()));
         }
+        engine.clearChanges();
+    }
 
-        cell = j - cols;
-        if (cell >= 0)
-            if (field[cell] > MINE_CELL) {
-                field[cell] -= COVER_FOR_CELL;
-                if (field[cell] == EMPTY_CELL)
-                    find_empty_cells(cell);
+    /**
+     * Indice (clic du milieu) : la position est copiée puis analysée par le
+     * thread des indices ; le résultat revient par hintReady(). Tableaux du
+     * solveur et copie sont gardés d'un indice à l'autre.
+     */
+    private void showHint() {
+        if (hint_pending)
+            return;
+        if (hint_engine == null || !hint_engine.getConfig().equals(engine.getConfig()))
+            hint_engine = new BoardEngine(engine.getConfig());
+        hint_engine.copyFrom(engine);
+        hint_pending = true;
+        BoardEngine position = hint_engine;
+        int stamp = position_stamp;
+
+        HINT_SOLVER.execute(() -> {
+            Solver.Move move = null;
+            try {
+                if (solver == null)
+                    solver = new Solver(position);
+                else
+                    solver.setEngine(position);
+                move = solver.hint();
+            } catch (RuntimeException e) {
+                System.err.println("Indice impossible: " + e);
             }
+            Solver.Move result = move;
+            SwingUtilities.invokeLater(() -> hintReady(result, stamp));
+        });
+    }
 
-        cell = j + cols;
-        if (cell < all_cells)
-            if (field[cell] > MINE_CELL) {
-                field[cell] -= COVER_FOR_CELL;
-                if (field[cell] == EMPTY_CELL)
-                    find_empty_cells(cell);
-            }
+    /**
+     * Résultat du thread des indices, ignoré si un coup a été joué entre-temps
+     */
+    private void hintReady(Solver.Move move, int stamp) {
+        hint_pending = false;
+        if (move == null || stamp != position_stamp || !engine.isInGame())
+            return;
+
+        hint = move;
+        if (hint.isSafe())
+            statusbar.setText("Indice: case sûre");
+        else
+            statusbar.setText("Indice: risque " + Math.round(hint.getMineProbability() * 100) + "%");
+        repaintCell(hint.getPosition());
+    }
 
-        if (current_col < (cols - 1)) {
-            cell = j - cols + 1;
-            if (cell >= 0)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
+    private void clearHint() {
+        if (hint != null) {
+            repaintCell(hint.getPosition());
+            hint = null;
+        }
+    }
 
-            cell = j + cols + 1;
-            if (cell < all_cells)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
+    private void repaintCell(int position) {
+        int row = position / engine.getCols();
+        int col = position % engine.getCols();
+        repaint(renderer.getCellBounds(row, row, col, col));
+    }
 
-            cell = j + 1;
-            if (cell < all_cells)
-                if (field[cell] > MINE_CELL) {
-                    field[cell] -= COVER_FOR_CELL;
-                    if (field[cell] == EMPTY_CELL)
-                        find_empty_cells(cell);
-                }
-        }
+    public BoardRenderer getRenderer() {
+        return renderer;
+    }
+
+    public BoardEngine getEngine() {
+        return engine;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
-        int cell = 0;
-        int uncover = 0;
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                cell = field[(i * cols) + j];
-
-                if (inGame && cell == MINE_CELL)
-                    inGame = false;
-
-                if (!inGame) {
-                    if (cell == COVERED_MINE_CELL) {
-                        cell = DRAW_MINE;
-                    } else if (cell == MARKED_MINE_CELL) {
-                        cell = DRAW_MARK;
-                    } else if (cell > COVERED_MINE_CELL) {
-                        cell = DRAW_WRONG_MARK;
-                    } else if (cell > MINE_CELL) {
-                        cell = DRAW_COVER;
-                    }
-                } else {
-                    if (cell > COVERED_MINE_CELL)
-                        cell = DRAW_MARK;
-                    else if (cell > MINE_CELL) {
-                        cell = DRAW_COVER;
-                        uncover++;
-                    }
-                }
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        renderer.paint(g, engine, clip);
+        StartupProbe.boardPainted();
+        if (Metrics.ENABLED && input_nanos != 0) {
+            Metrics.INPUT_TO_PAINT.record(System.nanoTime() - input_nanos);
+            input_nanos = 0;
+        }
 
-                g.drawImage(img[cell], (j * CELL_SIZE), (i * CELL_SIZE), this);
-            }
+        if (hint != null) {
+            int row = hint.getPosition() / engine.getCols();
+            int col = hint.getPosition() % engine.getCols();
+            Rectangle cell = renderer.getCellBounds(row, row, col, col);
+            g.setColor(hint.isSafe() ? java.awt.Color.GREEN : java.awt.Color.ORANGE);
+            g.drawRect(cell.x, cell.y, Math.max(0, cell.width - 1), Math.max(0, cell.height - 1));
         }
+    }
 
-        if (uncover == mines && inGame) {
-            inGame = false;
+    /**
+     * Affiche le résultat dès la fin de la partie, sans attendre le dessin
+     */
+    private void showResult() {
+        if (engine.isWon())
             statusbar.setText("Game won");
-        } else if (!inGame)
+        else if (engine.isLost())
             statusbar.setText("Game lost");
     }
 
@@ -334,57 +329,63 @@ public class Board extends JPanel {
     class MinesAdapter extends MouseAdapter {
         @Override
         public void mousePressed(MouseEvent e) {
-            int x = e.getX();
-            int y = e.getY();
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            boolean rep = false;
 
-            int cCol = x / CELL_SIZE;
-            int cRow = y / CELL_SIZE;
+            // Cases trop petites pour être visées : le clic rapproche la vue
+            if (!renderer.isClickable()) {
+                viewport.zoomAt(renderer.getZoom() - 1, e.getPoint());
+                return;
+            }
 
-            boolean rep = false;
+            if (e.getButton() == MouseEvent.BUTTON2) {
+                if (engine.isInGame())
+                    showHint();
+                return;
+            }
+            clearHint();
 
-            if (!inGame) {
+            if (!engine.isInGame()) {
                 newGame();
                 repaint();
             }
 
-            if ((x < cols * CELL_SIZE) && (y < rows * CELL_SIZE)) {
+            int pos = renderer.cellAt(engine, e.getX(), e.getY());
+            if (pos >= 0) {
+
                 if (e.getButton() == MouseEvent.BUTTON3) {
-                    if (field[(cRow * cols) + cCol] > MINE_CELL) {
+                    if (engine.isCovered(pos)) {
                         rep = true;
+                        record(MoveJournal.BUTTON_RIGHT, pos);
 
-                        if (field[(cRow * cols) + cCol] <= COVERED_MINE_CELL) {
-                            if (mines_left > 0) {
-                                field[(cRow * cols) + cCol] += MARK_FOR_CELL;
-                                mines_left--;
-                                statusbar.setText(Integer.toString(mines_left));
-                            } else
+                        if (!engine.isMarked(pos)) {
+                            if (engine.mark(pos))
+                                statusbar.setText(Integer.toString(engine.getMinesLeft()));
+                            else
                                 statusbar.setText("No marks left");
                         } else {
-                            field[(cRow * cols) + cCol] -= MARK_FOR_CELL;
-                            mines_left++;
-                            statusbar.setText(Integer.toString(mines_left));
+                            engine.unmark(pos);
+                            statusbar.setText(Integer.toString(engine.getMinesLeft()));
                         }
                     }
                 } else {
-                    if (field[(cRow * cols) + cCol] > COVERED_MINE_CELL) {
+                    if (engine.isMarked(pos)) {
                         return;
                     }
 
-                    if ((field[(cRow * cols) + cCol] > MINE_CELL) &&
-                        (field[(cRow * cols) + cCol] < MARKED_MINE_CELL)) {
-
-                        field[(cRow * cols) + cCol] -= COVER_FOR_CELL;
+                    if (engine.reveal(pos)) {
                         rep = true;
-
-                        if (field[(cRow * cols) + cCol] == MINE_CELL)
-                            inGame = false;
-                        if (field[(cRow * cols) + cCol] == EMPTY_CELL)
-                            find_empty_cells((cRow * cols) + cCol);
+                        record(MoveJournal.BUTTON_LEFT, pos);
                     }
                 }
 
-                if (rep)
-                    repaint();
+                if (rep) {
+                    position_stamp++;
+                    if (Metrics.ENABLED)
+                        input_nanos = start;
+                    showResult();
+                    repaintChanges();
+                }
             }
         }
     }
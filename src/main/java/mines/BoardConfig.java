@@ -0,0 +1,76 @@
+package mines;
+
+/**
+ * Dimensions et nombre de mines d'une partie (valeur immuable)
+ */
+public final class BoardConfig {
+
+    public static final BoardConfig BEGINNER = new BoardConfig(9, 9, 10);
+    public static final BoardConfig INTERMEDIATE = new BoardConfig(16, 16, 40);
+    public static final BoardConfig EXPERT = new BoardConfig(16, 30, 99);
+
+    /** Taille maximale d'un tableau Java */
+    public static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final int rows;
+    private final int cols;
+    private final int mines;
+
+    public BoardConfig(int rows, int cols, int mines) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Dimensions invalides: " + rows + "x" + cols);
+        if ((long) rows * cols > MAX_CELLS)
+            throw new IllegalArgumentException("Plateau trop grand: " + rows + "x" + cols);
+        if (mines < 0 || mines > rows * cols)
+            throw new IllegalArgumentException("Nombre de mines invalide: " + mines);
+
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+    }
+
+    /**
+     * Configuration à partir d'une densité de mines (entre 0 et 1)
+     */
+    public static BoardConfig withDensity(int rows, int cols, double density) {
+        if (density < 0 || density > 1)
+            throw new IllegalArgumentException("Densité invalide: " + density);
+        return new BoardConfig(rows, cols, (int) Math.round((double) rows * cols * density));
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public int getAllCells() {
+        return rows * cols;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof BoardConfig))
+            return false;
+        BoardConfig other = (BoardConfig) o;
+        return rows == other.rows && cols == other.cols && mines == other.mines;
+    }
+
+    @Override
+    public int hashCode() {
+        return (rows * 31 + cols) * 31 + mines;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + "/" + mines;
+    }
+}
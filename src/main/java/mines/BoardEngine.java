@@ -0,0 +1,727 @@
+package mines;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Moteur du démineur sans aucune dépendance AWT/Swing.
+ * Contient l'état du champ et les règles du jeu ; Board et MultiplayerBoard
+ * ne font que l'afficher. Utilisable tel quel pour la simulation headless.
+ */
+public class BoardEngine {
+
+    public static final int COVER_FOR_CELL = 10;
+    public static final int MARK_FOR_CELL = 10;
+    public static final int EMPTY_CELL = 0;
+    public static final int MINE_CELL = 9;
+    public static final int COVERED_MINE_CELL = MINE_CELL + COVER_FOR_CELL;
+    public static final int MARKED_MINE_CELL = COVERED_MINE_CELL + MARK_FOR_CELL;
+
+    // Grille compactée : 21 cases de 3 bits par long
+    private static final int CELLS_PER_WORD = 21;
+    // Code 3 bits de chaque valeur de case (0-29) : bit 0 mine, bits 1-2 état
+    private static final byte[] PACKED_CODE = new byte[MARKED_MINE_CELL + 1];
+
+    static {
+        for (int cell = 0; cell <= MARKED_MINE_CELL; cell++) {
+            int state = cell / COVER_FOR_CELL;
+            int code = (state == 0 ? 1 : state == 1 ? 0 : 2) << 1;
+            if (cell % COVER_FOR_CELL == MINE_CELL)
+                code |= 1;
+            PACKED_CODE[cell] = (byte) code;
+        }
+    }
+
+    // Décodage sans branchement, indexé par le code 3 bits
+    private static final byte[] UNPACK_DELTA = {0, 0, -COVER_FOR_CELL, -COVER_FOR_CELL,
+            MARK_FOR_CELL, MARK_FOR_CELL, 0, 0};
+    private static final byte[] UNPACK_COVERED_SAFE = {1, 0, 0, 0, 1, 0, 0, 0};
+    private static final byte[] UNPACK_REVEALED_MINE = {0, 0, 0, 1, 0, 0, 0, 0};
+
+    /**
+     * Méthode de calcul des chiffres lors de la génération
+     */
+    public enum Generation {
+        /** Mise à jour des 8 voisines à chaque mine posée */
+        INCREMENTAL,
+        /** Mines posées d'abord, puis un seul balayage ligne par ligne */
+        SWEEP,
+        /** INCREMENTAL sous SWEEP_MIN_DENSITY_PERCENT de mines, SWEEP au-delà */
+        AUTO
+    }
+
+    /**
+     * Densité à partir de laquelle le balayage devient plus rapide que la mise
+     * à jour incrémentale (GenerationBenchmark, 1000x1000 : 1,7 contre 3,1 ms
+     * à 5 %, équivalents vers 10 %, 14 contre 7 ms à 30 %)
+     */
+    static final int SWEEP_MIN_DENSITY_PERCENT = 10;
+
+    /**
+     * Notifié pour chaque case découverte par propagation (find_empty_cells)
+     */
+    public interface RevealListener {
+        void cellRevealed(int position);
+    }
+
+    // Une case tient dans un octet : 0-8, MINE_CELL, + COVER_FOR_CELL, + MARK_FOR_CELL (max 29)
+    private byte[] field;
+    private boolean inGame;
+    // Cases sans mine encore couvertes : zéro signifie partie gagnée
+    private int covered_safe;
+    private boolean mine_hit;
+    private int mines_left;
+    private final BoardConfig config;
+    private final int mines;
+    private final int rows;
+    private final int cols;
+    private final int all_cells;
+    private long seed;
+    // Mines pas encore posées : elles le seront au premier reveal()
+    private boolean deferred;
+    private Generation generation = Generation.AUTO;
+    private RevealListener revealListener;
+
+    // Pile de la propagation, conservée entre deux clics
+    private int[] stack = new int[64];
+    private int stack_size;
+
+    // Rectangle (en cases) modifié depuis le dernier clearChanges()
+    private int dirty_min_row;
+    private int dirty_max_row;
+    private int dirty_min_col;
+    private int dirty_max_col;
+
+    // Cases modifiées depuis le dernier clearChangedCells(), si suivies
+    private int[] changed_cells;
+    private int changed_count;
+    private boolean all_changed;
+
+    // Tampons du balayage, bordés d'une case sentinelle à gauche et à droite
+    private int[] row_above;
+    private int[] row_current;
+    private int[] row_below;
+    private int[] column_sums;
+
+
+    public BoardEngine() {
+        this(BoardConfig.INTERMEDIATE);
+    }
+
+    public BoardEngine(BoardConfig config) {
+        this.config = config;
+        this.rows = config.getRows();
+        this.cols = config.getCols();
+        this.mines = config.getMines();
+        this.all_cells = config.getAllCells();
+    }
+
+    public void newGame() {
+        newGame(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Nouvelle partie reproductible : la même graine redonne la même grille.
+     * Placement des mines par l'algorithme de Floyd, O(mines) tirages quelle
+     * que soit la densité (plus de rejets quand le plateau est presque plein).
+     */
+    public void newGame(long seed) {
+        newGame(seed, -1);
+    }
+
+    /**
+     * Comme newGame(seed), mais sans aucune mine sur safeCell ni ses voisines :
+     * le premier clic sur cette case ouvre une zone. Si le plateau est trop
+     * plein, seule safeCell est épargnée. safeCell = -1 : aucune exclusion.
+     */
+    public void newGame(long seed, int safeCell) {
+        reset(seed);
+        placeMines(safeCell);
+    }
+
+    public void newGameDeferred() {
+        newGameDeferred(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Nouvelle partie sans mines : elles ne sont posées (et les chiffres
+     * calculés) qu'au premier reveal(), hors de la case cliquée et de ses
+     * voisines. Recommencer ne coûte alors qu'un remplissage du tableau.
+     */
+    public void newGameDeferred(long seed) {
+        reset(seed);
+        deferred = true;
+    }
+
+    /**
+     * Recopie la position de other (même configuration), par exemple pour la
+     * faire analyser par un autre thread pendant que la partie continue
+     */
+    public void copyFrom(BoardEngine other) {
+        if (!other.config.equals(config))
+            throw new IllegalArgumentException("Configuration différente: " + other.config);
+
+        reset(other.seed);
+        System.arraycopy(other.field, 0, field, 0, all_cells);
+        inGame = other.inGame;
+        mine_hit = other.mine_hit;
+        deferred = other.deferred;
+        covered_safe = other.covered_safe;
+        mines_left = other.mines_left;
+    }
+
+    private void reset(long seed) {
+        this.seed = seed;
+        inGame = true;
+        mine_hit = false;
+        deferred = false;
+        covered_safe = all_cells - mines;
+        mines_left = mines;
+
+        if (field == null)
+            field = new byte[all_cells];
+        Arrays.fill(field, (byte) COVER_FOR_CELL);
+
+        dirty_min_row = 0;
+        dirty_max_row = rows - 1;
+        dirty_min_col = 0;
+        dirty_max_col = cols - 1;
+        all_changed = true;
+        changed_count = 0;
+    }
+
+    /**
+     * Pose les mines de la graine courante sur un champ entièrement couvert
+     * (drapeaux éventuels mis à part)
+     */
+    private void placeMines(int safeCell) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Drapeaux posés avant le premier clic : retirés puis remis après le placement
+        int[] flags = new int[mines - mines_left];
+        if (flags.length > 0) {
+            int count = 0;
+            for (int i = 0; i < all_cells; i++) {
+                if (field[i] > COVERED_MINE_CELL) {
+                    flags[count++] = i;
+                    field[i] = COVER_FOR_CELL;
+                }
+            }
+        }
+
+        // Tirage parmi les cases autorisées (indices virtuels), puis conversion
+        int[] excluded = excludedCells(safeCell);
+        int free_cells = all_cells - excluded.length;
+        boolean sweep = generation == Generation.SWEEP || (generation == Generation.AUTO
+                && (long) mines * 100 >= (long) all_cells * SWEEP_MIN_DENSITY_PERCENT);
+        for (int j = free_cells - mines; j < free_cells; j++) {
+            int position = skipExcluded(random.nextInt(j + 1), excluded);
+            if (field[position] == COVERED_MINE_CELL)
+                position = skipExcluded(j, excluded);
+            if (sweep)
+                field[position] = COVERED_MINE_CELL;
+            else
+                placeMine(position);
+        }
+
+        if (sweep)
+            computeCounts();
+
+        for (int flag : flags)
+            field[flag] += MARK_FOR_CELL;
+
+        if (Metrics.ENABLED) {
+            Metrics.GENERATED.increment();
+            Metrics.GENERATION.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Cases interdites aux mines, par ordre croissant
+     */
+    private int[] excludedCells(int safeCell) {
+        if (safeCell < 0 || mines >= all_cells)
+            return new int[0];
+
+        int row = safeCell / cols;
+        int col = safeCell - row * cols;
+        int[] excluded = new int[9];
+        int count = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++)
+                excluded[count++] = r * cols + c;
+        }
+
+        if (all_cells - count < mines)
+            return new int[] {safeCell};
+        return Arrays.copyOf(excluded, count);
+    }
+
+    /**
+     * Indice virtuel (cases exclues retirées) vers position réelle
+     */
+    private static int skipExcluded(int index, int[] excluded) {
+        for (int cell : excluded) {
+            if (cell <= index)
+                index++;
+            else
+                break;
+        }
+        return index;
+    }
+
+    /**
+     * Calcule tous les chiffres en un seul passage sur les lignes.
+     * Chaque case vaut alors COVER_FOR_CELL ou COVERED_MINE_CELL ; on garde
+     * trois lignes d'indicateurs de mine (0/1) et leurs sommes verticales,
+     * les sentinelles évitent tout test de bord dans la boucle interne.
+     */
+    private void computeCounts() {
+        if (column_sums == null) {
+            row_above = new int[cols + 2];
+            row_current = new int[cols + 2];
+            row_below = new int[cols + 2];
+            column_sums = new int[cols + 2];
+        }
+
+        Arrays.fill(row_above, 0);
+        loadMineRow(0, row_current);
+
+        for (int r = 0; r < rows; r++) {
+            if (r + 1 < rows)
+                loadMineRow(r + 1, row_below);
+            else
+                Arrays.fill(row_below, 0);
+
+            for (int c = 1; c <= cols; c++)
+                column_sums[c] = row_above[c] + row_current[c] + row_below[c];
+
+            int base = r * cols - 1;
+            for (int c = 1; c <= cols; c++) {
+                int is_mine = row_current[c];
+                int count = column_sums[c - 1] + column_sums[c] + column_sums[c + 1] - is_mine;
+                field[base + c] = (byte) (COVER_FOR_CELL + count + is_mine * (MINE_CELL - count));
+            }
+
+            int[] recycled = row_above;
+            row_above = row_current;
+            row_current = row_below;
+            row_below = recycled;
+        }
+    }
+
+    /**
+     * Indicateurs de mine d'une ligne : case - COVER_FOR_CELL vaut 0 ou MINE_CELL (9),
+     * un décalage de 3 bits donne donc 0 ou 1 sans branchement
+     */
+    private void loadMineRow(int row, int[] target) {
+        int base = row * cols - 1;
+        for (int c = 1; c <= cols; c++)
+            target[c] = (field[base + c] - COVER_FOR_CELL) >> 3;
+    }
+
+    private void placeMine(int position) {
+        int current_col = position % cols;
+        int cell;
+
+        field[position] = COVERED_MINE_CELL;
+
+        if (current_col > 0) {
+            cell = position - 1 - cols;
+            if (cell >= 0)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+            cell = position - 1;
+            if (cell >= 0)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+
+            cell = position + cols - 1;
+            if (cell < all_cells)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+        }
+
+        cell = position - cols;
+        if (cell >= 0)
+            if (field[cell] != COVERED_MINE_CELL)
+                field[cell] += 1;
+        cell = position + cols;
+        if (cell < all_cells)
+            if (field[cell] != COVERED_MINE_CELL)
+                field[cell] += 1;
+
+        if (current_col < (cols - 1)) {
+            cell = position - cols + 1;
+            if (cell >= 0)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+            cell = position + cols + 1;
+            if (cell < all_cells)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+            cell = position + 1;
+            if (cell < all_cells)
+                if (field[cell] != COVERED_MINE_CELL)
+                    field[cell] += 1;
+        }
+    }
+
+
+    /**
+     * Propagation itérative depuis une case vide : pile d'entiers réutilisée
+     * d'un clic à l'autre, aucune allocation une fois la pile dimensionnée.
+     */
+    public void find_empty_cells(int j) {
+        stack_size = 0;
+        push(j);
+
+        while (stack_size > 0) {
+            int current = stack[--stack_size];
+            int current_col = current % cols;
+
+            if (current_col > 0) {
+                uncoverNeighbour(current - cols - 1);
+                uncoverNeighbour(current - 1);
+                uncoverNeighbour(current + cols - 1);
+            }
+
+            uncoverNeighbour(current - cols);
+            uncoverNeighbour(current + cols);
+
+            if (current_col < (cols - 1)) {
+                uncoverNeighbour(current - cols + 1);
+                uncoverNeighbour(current + cols + 1);
+                uncoverNeighbour(current + 1);
+            }
+        }
+    }
+
+    private void uncoverNeighbour(int cell) {
+        if (cell >= 0 && cell < all_cells)
+            if (field[cell] > MINE_CELL) {
+                field[cell] -= COVER_FOR_CELL;
+                touch(cell);
+                if (field[cell] <= MINE_CELL)
+                    covered_safe--;
+                if (revealListener != null)
+                    revealListener.cellRevealed(cell);
+                if (field[cell] == EMPTY_CELL)
+                    push(cell);
+            }
+    }
+
+    private void push(int cell) {
+        if (stack_size == stack.length)
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[stack_size++] = cell;
+    }
+
+    /**
+     * Découvre une case (clic gauche). Retourne false si la case
+     * était déjà découverte ou marquée.
+     */
+    public boolean reveal(int position) {
+        if (!isCovered(position) || isMarked(position))
+            return false;
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+
+        if (deferred) {
+            deferred = false;
+            placeMines(position);
+        }
+
+        field[position] -= COVER_FOR_CELL;
+        touch(position);
+
+        if (field[position] == MINE_CELL) {
+            mine_hit = true;
+            inGame = false;
+            if (Metrics.ENABLED) {
+                Metrics.MINES_HIT.increment();
+                recordReveal(start);
+            }
+            return true;
+        }
+
+        covered_safe--;
+        if (field[position] == EMPTY_CELL) {
+            int before = covered_safe;
+            find_empty_cells(position);
+            if (Metrics.ENABLED)
+                Metrics.FLOOD.record(before - covered_safe);
+        }
+        if (covered_safe == 0)
+            inGame = false;
+        if (Metrics.ENABLED)
+            recordReveal(start);
+        return true;
+    }
+
+    private static void recordReveal(long start) {
+        Metrics.REVEALS.increment();
+        Metrics.REVEAL.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Pose un drapeau sur une case couverte. Retourne false s'il
+     * ne reste plus de drapeaux.
+     */
+    public boolean mark(int position) {
+        if (mines_left <= 0)
+            return false;
+        field[position] += MARK_FOR_CELL;
+        mines_left--;
+        touch(position);
+        return true;
+    }
+
+    public void unmark(int position) {
+        field[position] -= MARK_FOR_CELL;
+        mines_left++;
+        touch(position);
+    }
+
+    /**
+     * Étend le rectangle modifié à la case donnée
+     */
+    private void touch(int position) {
+        if (changed_cells != null && !all_changed)
+            logChange(position);
+
+        int row = position / cols;
+        int col = position - row * cols;
+
+        if (row < dirty_min_row)
+            dirty_min_row = row;
+        if (row > dirty_max_row)
+            dirty_max_row = row;
+        if (col < dirty_min_col)
+            dirty_min_col = col;
+        if (col > dirty_max_col)
+            dirty_max_col = col;
+    }
+
+    /**
+     * Ajoute la case à la liste des cases modifiées ; au-delà d'une entrée
+     * par case, la liste est abandonnée au profit de isAllChanged()
+     */
+    private void logChange(int position) {
+        if (changed_count == changed_cells.length) {
+            if (changed_count >= all_cells) {
+                all_changed = true;
+                changed_count = 0;
+                return;
+            }
+            changed_cells = Arrays.copyOf(changed_cells, Math.min(changed_count * 2, all_cells));
+        }
+        changed_cells[changed_count++] = position;
+    }
+
+    /**
+     * Active la liste des cases modifiées (voir DeltaEncoder), indépendante
+     * du rectangle de clearChanges()
+     */
+    public void trackChangedCells(boolean track) {
+        changed_cells = track ? new int[Math.min(64, all_cells)] : null;
+        changed_count = 0;
+        all_changed = true;
+    }
+
+    /**
+     * Vrai si toute la grille est à considérer comme modifiée : nouvelle
+     * partie, grille relue ou trop de changements pour la liste
+     */
+    public boolean isAllChanged() {
+        return all_changed;
+    }
+
+    public int getChangedCellCount() {
+        return changed_count;
+    }
+
+    /**
+     * Cases modifiées, dans l'ordre des changements, avec doublons possibles
+     * (tableau interne non copié, getChangedCellCount() entrées valides)
+     */
+    public int[] getChangedCells() {
+        return changed_cells;
+    }
+
+    public void clearChangedCells() {
+        changed_count = 0;
+        all_changed = false;
+    }
+
+    /**
+     * Vrai si une case a changé depuis le dernier clearChanges()
+     */
+    public boolean hasChanges() {
+        return dirty_min_row <= dirty_max_row;
+    }
+
+    public void clearChanges() {
+        dirty_min_row = Integer.MAX_VALUE;
+        dirty_max_row = -1;
+        dirty_min_col = Integer.MAX_VALUE;
+        dirty_max_col = -1;
+    }
+
+    public int getChangedMinRow() {
+        return dirty_min_row;
+    }
+
+    public int getChangedMaxRow() {
+        return dirty_max_row;
+    }
+
+    public int getChangedMinCol() {
+        return dirty_min_col;
+    }
+
+    public int getChangedMaxCol() {
+        return dirty_max_col;
+    }
+
+    public boolean isCovered(int position) {
+        return field[position] > MINE_CELL;
+    }
+
+    public boolean isMarked(int position) {
+        return field[position] > COVERED_MINE_CELL;
+    }
+
+    public int getCell(int position) {
+        return field[position];
+    }
+
+    public boolean isInGame() {
+        return inGame;
+    }
+
+    /**
+     * Partie gagnée : toutes les cases sans mine sont découvertes
+     */
+    public boolean isWon() {
+        return covered_safe == 0 && !mine_hit;
+    }
+
+    public boolean isLost() {
+        return mine_hit;
+    }
+
+    public int getCoveredSafeCells() {
+        return covered_safe;
+    }
+
+    public int getMinesLeft() {
+        return mines_left;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * Vrai tant que les mines d'une partie différée ne sont pas posées
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public Generation getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Generation generation) {
+        this.generation = generation;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getAllCells() {
+        return all_cells;
+    }
+
+    /**
+     * Taille de la grille compactée : 3 bits par case, 21 cases par long
+     */
+    public long packedGridBytes() {
+        return ((all_cells + CELLS_PER_WORD - 1) / CELLS_PER_WORD) * 8L;
+    }
+
+    /**
+     * Écrit la grille compactée. Pour chaque case : bit 0 mine, bits 1-2 état
+     * (0 couverte, 1 découverte, 2 drapeau). Les chiffres ne sont pas stockés.
+     */
+    public void writeGrid(ByteBuffer out) {
+        for (int base = 0; base < all_cells; base += CELLS_PER_WORD) {
+            int end = Math.min(base + CELLS_PER_WORD, all_cells);
+            long word = 0;
+            for (int i = base, shift = 0; i < end; i++, shift += 3)
+                word |= (long) PACKED_CODE[field[i]] << shift;
+            out.putLong(word);
+        }
+    }
+
+    /**
+     * Relit une grille écrite par writeGrid : chiffres recalculés, compteurs
+     * de la partie reconstruits
+     */
+    public void readGrid(ByteBuffer in, long seed, int minesLeft, boolean inGame, boolean deferred) {
+        reset(seed);
+        this.deferred = deferred;
+        int start = in.position();
+
+        // 1. Mines seules, pour le calcul des chiffres
+        for (int base = 0; base < all_cells; base += CELLS_PER_WORD) {
+            long word = in.getLong();
+            int end = Math.min(base + CELLS_PER_WORD, all_cells);
+            for (int i = base; i < end; i++, word >>>= 3)
+                field[i] = (byte) (COVER_FOR_CELL + (word & 1) * MINE_CELL);
+        }
+        computeCounts();
+
+        // 2. États des cases
+        in.position(start);
+        int safe = 0;
+        int mines_hit = 0;
+        for (int base = 0; base < all_cells; base += CELLS_PER_WORD) {
+            long word = in.getLong();
+            int end = Math.min(base + CELLS_PER_WORD, all_cells);
+            for (int i = base; i < end; i++, word >>>= 3) {
+                int code = (int) word & 7;
+                field[i] += UNPACK_DELTA[code];
+                safe += UNPACK_COVERED_SAFE[code];
+                mines_hit += UNPACK_REVEALED_MINE[code];
+            }
+        }
+        // Partie différée : grille sans mines, elles seront posées au premier clic
+        covered_safe = deferred ? all_cells - mines : safe;
+        mine_hit = mines_hit > 0;
+
+        this.mines_left = minesLeft;
+        this.inGame = inGame;
+    }
+
+    public void setRevealListener(RevealListener revealListener) {
+        this.revealListener = revealListener;
+    }
+}
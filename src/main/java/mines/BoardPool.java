@@ -0,0 +1,232 @@
+package mines;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réserve de parties déjà générées, par configuration et par mode.
+ * Un thread virtuel remplit chaque file en arrière-plan : newGame() n'a plus
+ * qu'à retirer un moteur prêt, en O(1), au lieu de générer sur l'EDT.
+ * Si la file est vide (défaut), la partie est générée dans le thread appelant.
+ *
+ * En mode sans devinette, la file ne contient que des grilles vérifiées : le
+ * producteur jette celles du repli hors budget et recommence, de plus en plus
+ * lentement tant qu'il échoue. Seule une génération dans le thread appelant
+ * peut servir une grille non vérifiée (Deal.isValidated() faux).
+ */
+public final class BoardPool {
+
+    public static final int DEFAULT_CAPACITY = 4;
+
+    // Pause du producteur après une grille jetée, doublée à chaque échec
+    static final long MIN_RETRY_MILLIS = 10;
+    static final long MAX_RETRY_MILLIS = 2000;
+
+    private static final BoardPool SHARED = new BoardPool(DEFAULT_CAPACITY);
+
+    /**
+     * Partie servie par take() : le moteur, et pour le mode sans devinette
+     * si la grille a bien été vérifiée (faux si le générateur s'est rabattu
+     * sur une grille ordinaire ouverte au centre)
+     */
+    public static final class Deal {
+        private final BoardEngine engine;
+        private final boolean validated;
+
+        Deal(BoardEngine engine, boolean validated) {
+            this.engine = engine;
+            this.validated = validated;
+        }
+
+        public BoardEngine getEngine() {
+            return engine;
+        }
+
+        public boolean isValidated() {
+            return validated;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentMap<Key, Slot> slots = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+
+    public BoardPool(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacité invalide: " + capacity);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Réserve commune à toute l'application
+     */
+    public static BoardPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Partie prête à jouer pour cette configuration (case de départ déjà
+     * découverte en mode sans devinette). Le premier appel démarre le
+     * remplissage de la file correspondante.
+     */
+    public Deal take(BoardConfig config, boolean noGuess) {
+        Slot slot = slots.computeIfAbsent(new Key(config, noGuess), Slot::new);
+
+        Deal deal = slot.ready.poll();
+        if (deal != null) {
+            hits.incrementAndGet();
+            return deal;
+        }
+
+        misses.incrementAndGet();
+        BoardEngine engine = slot.recycled.poll();
+        if (engine == null)
+            engine = new BoardEngine(config);
+        boolean validated = slot.generate(engine);
+        if (!validated)
+            fallbacks.incrementAndGet();
+        return new Deal(engine, validated);
+    }
+
+    /**
+     * Rend un moteur dont la partie est terminée : son tableau sera réutilisé
+     * pour une prochaine génération. Le moteur ne doit plus être utilisé.
+     */
+    public void recycle(BoardEngine engine, boolean noGuess) {
+        Slot slot = slots.get(new Key(engine.getConfig(), noGuess));
+        if (slot != null) {
+            engine.setRevealListener(null);
+            slot.recycled.offer(engine);
+        }
+    }
+
+    /** Parties servies depuis la file */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** Parties générées dans le thread appelant, faute de partie prête */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** Parties sans devinette servies sans vérification, faute de partie prête */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /** Grilles non vérifiées jetées par les producteurs */
+    public long getDiscardCount() {
+        return discards.get();
+    }
+
+    /**
+     * Parties prêtes pour cette configuration
+     */
+    public int getReadyCount(BoardConfig config, boolean noGuess) {
+        Slot slot = slots.get(new Key(config, noGuess));
+        return slot == null ? 0 : slot.ready.size();
+    }
+
+    /**
+     * Arrête tous les producteurs et vide les files
+     */
+    public void shutdown() {
+        for (Slot slot : slots.values())
+            slot.stop();
+        slots.clear();
+    }
+
+    private static final class Key {
+        final BoardConfig config;
+        final boolean noGuess;
+
+        Key(BoardConfig config, boolean noGuess) {
+            this.config = config;
+            this.noGuess = noGuess;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return noGuess == other.noGuess && config.equals(other.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return config.hashCode() * 2 + (noGuess ? 1 : 0);
+        }
+    }
+
+    /**
+     * File d'une configuration et son producteur
+     */
+    private final class Slot {
+        final BoardConfig config;
+        final NoGuessGenerator generator;
+        final BlockingQueue<Deal> ready = new ArrayBlockingQueue<>(capacity);
+        final BlockingQueue<BoardEngine> recycled = new ArrayBlockingQueue<>(capacity);
+        final Thread producer;
+
+        Slot(Key key) {
+            this.config = key.config;
+            this.generator = key.noGuess ? new NoGuessGenerator(key.config) : null;
+            this.producer = Thread.ofVirtual().name("board-pool-" + key.config).start(this::produce);
+        }
+
+        /**
+         * Faux si la grille sans devinette n'a pas pu être vérifiée
+         */
+        boolean generate(BoardEngine engine) {
+            if (generator != null)
+                return generator.generate(engine);
+            engine.newGame();
+            return true;
+        }
+
+        private void produce() {
+            try {
+                BoardEngine engine = null;
+                long retry_millis = MIN_RETRY_MILLIS;
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (engine == null)
+                        engine = recycled.poll();
+                    if (engine == null)
+                        engine = new BoardEngine(config);
+
+                    if (!generate(engine)) {
+                        // Repli hors budget (ou générateur arrêté) : grille jetée, moteur gardé
+                        if (Thread.currentThread().isInterrupted())
+                            return;
+                        discards.incrementAndGet();
+                        Thread.sleep(retry_millis);
+                        retry_millis = Math.min(retry_millis * 2, MAX_RETRY_MILLIS);
+                        continue;
+                    }
+                    retry_millis = MIN_RETRY_MILLIS;
+                    ready.put(new Deal(engine, true));
+                    engine = null;
+                }
+            } catch (InterruptedException e) {
+                // Arrêt demandé par shutdown()
+            }
+        }
+
+        void stop() {
+            producer.interrupt();
+            if (generator != null)
+                generator.shutdown();
+            ready.clear();
+            recycled.clear();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package mines;
+
+import static mines.BoardEngine.*;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Cache de rendu du plateau : l'atlas des 13 tuiles (partagé, voir TileSet) et une
+ * image persistante du plateau, mise à jour uniquement sur les cases modifiées.
+ * Chaque frame se résume alors à une seule copie d'image.
+ *
+ * Zoom (niveau de détail) : au niveau 0 les tuiles, aux niveaux 1 à 4 une
+ * case est un carré de couleur unie de 8, 4, 2 puis 1 pixel, au-delà un
+ * pixel résume 2, 4... 128 cases (part de cases découvertes, lue dans une
+ * pyramide de moyennes tenue à jour comme l'image persistante). Seule la
+ * zone de clipping est dessinée, quelle que soit la taille du plateau.
+ */
+public class BoardRenderer {
+
+    public static final int NUM_IMAGES = 13;
+
+    public static final int DRAW_MINE = 9;
+    public static final int DRAW_COVER = 10;
+    public static final int DRAW_MARK = 11;
+    public static final int DRAW_WRONG_MARK = 12;
+
+    /**
+     * Au-delà (environ quatre écrans 1920x1080, 32 Mo en RGB), pas d'image
+     * persistante : dessin direct depuis l'atlas, limité à la zone de clipping
+     */
+    static final long MAX_BACKBUFFER_PIXELS = 8L * 1024 * 1024;
+
+    /** Niveaux 1 à PIXEL_LEVELS : 8, 4, 2 puis 1 pixel par case */
+    private static final int PIXEL_LEVELS = 4;
+    /** Jusqu'à 2^MAX_BLOCK_SHIFT cases par pixel */
+    private static final int MAX_BLOCK_SHIFT = 7;
+    public static final int MAX_ZOOM = PIXEL_LEVELS + MAX_BLOCK_SHIFT;
+    /** En dessous, une case est trop petite pour être visée à la souris */
+    private static final int MIN_CLICK_PIXELS = 4;
+
+    private static final int BACKGROUND = 0x808080;
+
+    private final int cellSize;
+    // Partagé entre tous les plateaux, lecture seule
+    private final BufferedImage atlas;
+    private BufferedImage backbuffer;
+
+    private int zoom;
+    // Couleur moyenne de la tuile de chaque valeur de case (en jeu, partie finie),
+    // et de 0 à 255 % de cases découvertes
+    private final int[] playing_colours = new int[MARKED_MINE_CELL + 1];
+    private final int[] ended_colours = new int[MARKED_MINE_CELL + 1];
+    private final int[] density_colours = new int[256];
+
+    // Pyramide : niveau l, une valeur par bloc de 2^l x 2^l cases (0-255 découvertes)
+    private byte[][] pyramid;
+    private int pyramid_rows;
+    private int pyramid_cols;
+
+    // Image de la taille du clipping pour les niveaux sans tuiles
+    private BufferedImage frame;
+    private int[] frame_pixels;
+
+    // Mesure du temps de dessin
+    private long frames;
+    private long lastFrameNanos;
+    private long totalFrameNanos;
+
+    public BoardRenderer(TileSet tiles) {
+        this.cellSize = tiles.getCellSize();
+        this.atlas = tiles.getAtlas();
+
+        for (int cell = 0; cell <= MARKED_MINE_CELL; cell++) {
+            playing_colours[cell] = tiles.getAverageColour(tileFor(cell, true));
+            ended_colours[cell] = tiles.getAverageColour(tileFor(cell, false));
+        }
+        int covered = tiles.getAverageColour(DRAW_COVER);
+        int revealed = tiles.getAverageColour(0);
+        for (int f = 0; f < 256; f++)
+            density_colours[f] = blend(covered, revealed, f);
+    }
+
+    private static int blend(int from, int to, int f) {
+        int red = (((from >> 16) & 0xFF) * (255 - f) + ((to >> 16) & 0xFF) * f) / 255;
+        int green = (((from >> 8) & 0xFF) * (255 - f) + ((to >> 8) & 0xFF) * f) / 255;
+        int blue = ((from & 0xFF) * (255 - f) + (to & 0xFF) * f) / 255;
+        return red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Tuile à afficher pour une valeur de case
+     */
+    public static int tileFor(int cell, boolean inGame) {
+        if (!inGame) {
+            if (cell == COVERED_MINE_CELL) {
+                return DRAW_MINE;
+            } else if (cell == MARKED_MINE_CELL) {
+                return DRAW_MARK;
+            } else if (cell > COVERED_MINE_CELL) {
+                return DRAW_WRONG_MARK;
+            } else if (cell > MINE_CELL) {
+                return DRAW_COVER;
+            }
+        } else {
+            if (cell > COVERED_MINE_CELL)
+                return DRAW_MARK;
+            else if (cell > MINE_CELL)
+                return DRAW_COVER;
+        }
+        return cell;
+    }
+
+    public void updateAll(BoardEngine engine) {
+        update(engine, 0, engine.getRows() - 1, 0, engine.getCols() - 1);
+    }
+
+    /**
+     * Recopie dans l'image persistante les tuiles des cases du rectangle donné
+     * (et met à jour la pyramide si elle existe)
+     */
+    public void update(BoardEngine engine, int minRow, int maxRow, int minCol, int maxCol) {
+        if (pyramid != null) {
+            if (pyramid_rows != engine.getRows() || pyramid_cols != engine.getCols())
+                pyramid = null;
+            else
+                updatePyramid(engine, minRow, maxRow, minCol, maxCol);
+        }
+        if (!ensureBackbuffer(engine))
+            return;
+
+        int cols = engine.getCols();
+        boolean inGame = engine.isInGame();
+        Graphics g = backbuffer.getGraphics();
+
+        for (int i = minRow; i <= maxRow; i++) {
+            for (int j = minCol; j <= maxCol; j++) {
+                drawTile(g, tileFor(engine.getCell((i * cols) + j), inGame), j * cellSize, i * cellSize);
+            }
+        }
+        g.dispose();
+    }
+
+    private boolean ensureBackbuffer(BoardEngine engine) {
+        int width = engine.getCols() * cellSize;
+        int height = engine.getRows() * cellSize;
+
+        if ((long) width * height > MAX_BACKBUFFER_PIXELS) {
+            backbuffer = null;
+            return false;
+        }
+        if (backbuffer == null || backbuffer.getWidth() != width || backbuffer.getHeight() != height)
+            backbuffer = TileSet.createImage(width, height);
+        return true;
+    }
+
+    /**
+     * Dessine la zone de clipping : une copie de l'image persistante, ou les
+     * tuiles une à une depuis l'atlas pour les plateaux trop grands
+     */
+    public void paint(Graphics g, BoardEngine engine, Rectangle clip) {
+        long start = System.nanoTime();
+
+        if (zoom > 0) {
+            paintPixels(g, engine, clip);
+        } else if (backbuffer != null) {
+            int x2 = Math.min(clip.x + clip.width, backbuffer.getWidth());
+            int y2 = Math.min(clip.y + clip.height, backbuffer.getHeight());
+            if (x2 > clip.x && y2 > clip.y)
+                g.drawImage(backbuffer, clip.x, clip.y, x2, y2, clip.x, clip.y, x2, y2, null);
+        } else {
+            int cols = engine.getCols();
+            boolean inGame = engine.isInGame();
+            int firstRow = Math.max(0, clip.y / cellSize);
+            int lastRow = Math.min(engine.getRows() - 1, (clip.y + clip.height - 1) / cellSize);
+            int firstCol = Math.max(0, clip.x / cellSize);
+            int lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellSize);
+
+            for (int i = firstRow; i <= lastRow; i++) {
+                for (int j = firstCol; j <= lastCol; j++) {
+                    drawTile(g, tileFor(engine.getCell((i * cols) + j), inGame), j * cellSize, i * cellSize);
+                }
+            }
+        }
+
+        lastFrameNanos = System.nanoTime() - start;
+        totalFrameNanos += lastFrameNanos;
+        frames++;
+        if (Metrics.ENABLED)
+            Metrics.PAINT.record(lastFrameNanos);
+    }
+
+    /**
+     * Niveaux sans tuiles : chaque pixel du clipping est calculé dans une
+     * image de travail, copiée en une fois
+     */
+    private void paintPixels(Graphics g, BoardEngine engine, Rectangle clip) {
+        int width = clip.width;
+        int height = clip.height;
+        if (width <= 0 || height <= 0)
+            return;
+        ensureFrame(width, height);
+        int stride = frame.getWidth();
+
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+        int[] colours = engine.isInGame() ? playing_colours : ended_colours;
+        int block_shift = blockShift();
+        byte[] level = null;
+        int level_rows = 0;
+        int level_cols = 0;
+        if (block_shift > 0) {
+            ensurePyramid(engine);
+            level = pyramid[block_shift];
+            level_rows = levelSize(rows, block_shift);
+            level_cols = levelSize(cols, block_shift);
+        }
+        int shift = pixelShift();
+
+        for (int y = 0; y < height; y++) {
+            int line = y * stride;
+            if (level == null) {
+                int row = (clip.y + y) >> shift;
+                if (row >= rows) {
+                    Arrays.fill(frame_pixels, line, line + width, BACKGROUND);
+                    continue;
+                }
+                int base = row * cols;
+                int visible = Math.min(width, (cols << shift) - clip.x);
+                if (shift == 0) {
+                    for (int x = 0; x < visible; x++)
+                        frame_pixels[line + x] = colours[engine.getCell(base + clip.x + x)];
+                } else {
+                    // Une case couvre 2^shift pixels : une lecture par case
+                    int x = 0;
+                    while (x < visible) {
+                        int col = (clip.x + x) >> shift;
+                        int end = Math.min(visible, ((col + 1) << shift) - clip.x);
+                        Arrays.fill(frame_pixels, line + x, line + end, colours[engine.getCell(base + col)]);
+                        x = end;
+                    }
+                }
+                if (visible < width)
+                    Arrays.fill(frame_pixels, line + Math.max(0, visible), line + width, BACKGROUND);
+            } else {
+                int row = clip.y + y;
+                if (row >= level_rows) {
+                    Arrays.fill(frame_pixels, line, line + width, BACKGROUND);
+                    continue;
+                }
+                int base = row * level_cols + clip.x;
+                int visible = Math.min(width, level_cols - clip.x);
+                for (int x = 0; x < visible; x++)
+                    frame_pixels[line + x] = density_colours[level[base + x] & 0xFF];
+                if (visible < width)
+                    Arrays.fill(frame_pixels, line + Math.max(0, visible), line + width, BACKGROUND);
+            }
+        }
+        g.drawImage(frame, clip.x, clip.y, clip.x + width, clip.y + height, 0, 0, width, height, null);
+    }
+
+    private void ensureFrame(int width, int height) {
+        if (frame == null || frame.getWidth() < width || frame.getHeight() < height) {
+            int w = Math.max(width, frame == null ? 0 : frame.getWidth());
+            int h = Math.max(height, frame == null ? 0 : frame.getHeight());
+            frame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            frame_pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    private static int levelSize(int cells, int shift) {
+        return (cells + (1 << shift) - 1) >> shift;
+    }
+
+    private void ensurePyramid(BoardEngine engine) {
+        if (pyramid != null && pyramid_rows == engine.getRows() && pyramid_cols == engine.getCols())
+            return;
+        pyramid_rows = engine.getRows();
+        pyramid_cols = engine.getCols();
+        pyramid = new byte[MAX_BLOCK_SHIFT + 1][];
+        for (int l = 1; l <= MAX_BLOCK_SHIFT; l++)
+            pyramid[l] = new byte[levelSize(pyramid_rows, l) * levelSize(pyramid_cols, l)];
+        updatePyramid(engine, 0, pyramid_rows - 1, 0, pyramid_cols - 1);
+    }
+
+    /**
+     * Recalcule les blocs couvrant le rectangle, niveau par niveau : le niveau 1
+     * depuis les cases, les suivants depuis le niveau inférieur
+     */
+    private void updatePyramid(BoardEngine engine, int minRow, int maxRow, int minCol, int maxCol) {
+        int rows = pyramid_rows;
+        int cols = pyramid_cols;
+        byte[] level = pyramid[1];
+        int level_cols = levelSize(cols, 1);
+        for (int r = minRow >> 1; r <= maxRow >> 1; r++) {
+            for (int c = minCol >> 1; c <= maxCol >> 1; c++) {
+                int revealed = 0;
+                int cells = 0;
+                for (int i = r << 1; i < Math.min(rows, (r << 1) + 2); i++) {
+                    for (int j = c << 1; j < Math.min(cols, (c << 1) + 2); j++) {
+                        cells++;
+                        if (engine.getCell(i * cols + j) <= MINE_CELL)
+                            revealed++;
+                    }
+                }
+                level[r * level_cols + c] = (byte) (revealed * 255 / cells);
+            }
+        }
+
+        for (int l = 2; l <= MAX_BLOCK_SHIFT; l++) {
+            byte[] below = pyramid[l - 1];
+            int below_rows = levelSize(rows, l - 1);
+            int below_cols = levelSize(cols, l - 1);
+            level = pyramid[l];
+            level_cols = levelSize(cols, l);
+            for (int r = minRow >> l; r <= maxRow >> l; r++) {
+                for (int c = minCol >> l; c <= maxCol >> l; c++) {
+                    int sum = 0;
+                    int blocks = 0;
+                    for (int i = r << 1; i < Math.min(below_rows, (r << 1) + 2); i++) {
+                        for (int j = c << 1; j < Math.min(below_cols, (c << 1) + 2); j++) {
+                            sum += below[i * below_cols + j] & 0xFF;
+                            blocks++;
+                        }
+                    }
+                    level[r * level_cols + c] = (byte) (sum / blocks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Niveau de zoom, de 0 (tuiles) à MAX_ZOOM
+     */
+    public int getZoom() {
+        return zoom;
+    }
+
+    public void setZoom(int zoom) {
+        this.zoom = Math.max(0, Math.min(MAX_ZOOM, zoom));
+    }
+
+    // Niveaux 1 à 4 : 2^pixelShift() pixels par case
+    private int pixelShift() {
+        return zoom <= PIXEL_LEVELS ? PIXEL_LEVELS - zoom : 0;
+    }
+
+    // Au-delà : 2^blockShift() cases par pixel
+    private int blockShift() {
+        return Math.max(0, zoom - PIXEL_LEVELS);
+    }
+
+    /**
+     * Taille d'une case en pixels (moins de 1 quand un pixel résume plusieurs cases)
+     */
+    public double getCellPixels() {
+        return getCellPixels(zoom);
+    }
+
+    public double getCellPixels(int zoom) {
+        if (zoom == 0)
+            return cellSize;
+        if (zoom <= PIXEL_LEVELS)
+            return 1 << (PIXEL_LEVELS - zoom);
+        return 1.0 / (1 << (zoom - PIXEL_LEVELS));
+    }
+
+    /**
+     * Une case est-elle assez grande pour être cliquée ?
+     */
+    public boolean isClickable() {
+        return getCellPixels() >= MIN_CLICK_PIXELS;
+    }
+
+    /**
+     * Taille du plateau entier en pixels au zoom courant
+     */
+    public Dimension getBoardSize(BoardEngine engine) {
+        return new Dimension(toPixels(engine.getCols()), toPixels(engine.getRows()));
+    }
+
+    private int toPixels(int cells) {
+        if (zoom == 0)
+            return cells * cellSize;
+        return levelSize(cells << pixelShift(), blockShift());
+    }
+
+    private int toCell(int pixel) {
+        if (zoom == 0)
+            return pixel / cellSize;
+        return (pixel >> pixelShift()) << blockShift();
+    }
+
+    /**
+     * Case sous le pixel (x, y), -1 en dehors du plateau
+     */
+    public int cellAt(BoardEngine engine, int x, int y) {
+        if (x < 0 || y < 0)
+            return -1;
+        int col = toCell(x);
+        int row = toCell(y);
+        if (col >= engine.getCols() || row >= engine.getRows())
+            return -1;
+        return row * engine.getCols() + col;
+    }
+
+    /**
+     * Pixels couverts par un rectangle de cases, pour repaint()
+     */
+    public Rectangle getCellBounds(int minRow, int maxRow, int minCol, int maxCol) {
+        if (zoom == 0)
+            return new Rectangle(minCol * cellSize, minRow * cellSize,
+                    (maxCol - minCol + 1) * cellSize, (maxRow - minRow + 1) * cellSize);
+        int x = (minCol << pixelShift()) >> blockShift();
+        int y = (minRow << pixelShift()) >> blockShift();
+        int x2 = levelSize((maxCol + 1) << pixelShift(), blockShift());
+        int y2 = levelSize((maxRow + 1) << pixelShift(), blockShift());
+        return new Rectangle(x, y, x2 - x, y2 - y);
+    }
+
+    private void drawTile(Graphics g, int tile, int x, int y) {
+        int sx = tile * cellSize;
+        g.drawImage(atlas, x, y, x + cellSize, y + cellSize, sx, 0, sx + cellSize, cellSize, null);
+    }
+
+    public boolean isCached() {
+        return backbuffer != null;
+    }
+
+    public long getFrameCount() {
+        return frames;
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getAverageFrameNanos() {
+        return frames == 0 ? 0 : totalFrameNanos / frames;
+    }
+}
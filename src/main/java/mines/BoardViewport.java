@@ -0,0 +1,150 @@
+package mines;
+
+import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.function.Supplier;
+
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+
+/**
+ * Plateau affiché dans un JScrollPane : seule la partie visible est dessinée
+ * et, en défilement, le viewport recopie ce qui est déjà à l'écran et ne fait
+ * redessiner que la bande découverte.
+ *
+ * Zoom avec Ctrl + molette (centré sur la souris) ou Ctrl +, Ctrl -, Ctrl 0
+ * (centré sur la vue) ; les niveaux sont ceux du BoardRenderer.
+ */
+public class BoardViewport {
+
+    private static final int SCROLL_UNIT = 16;
+
+    private final JComponent board;
+    private final BoardRenderer renderer;
+    private final Supplier<BoardEngine> engine;
+
+    public BoardViewport(JComponent board, BoardRenderer renderer, Supplier<BoardEngine> engine) {
+        this.board = board;
+        this.renderer = renderer;
+        this.engine = engine;
+
+        board.addMouseWheelListener(this::wheelMoved);
+        bind(KeyEvent.VK_ADD, "zoomIn", -1);
+        bind(KeyEvent.VK_EQUALS, "zoomIn", -1);
+        bind(KeyEvent.VK_PLUS, "zoomIn", -1);
+        bind(KeyEvent.VK_SUBTRACT, "zoomOut", 1);
+        bind(KeyEvent.VK_MINUS, "zoomOut", 1);
+        bind(KeyEvent.VK_0, "zoomReset", Integer.MIN_VALUE);
+        resized();
+    }
+
+    private void bind(int key, String name, int step) {
+        board.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(key, InputEvent.CTRL_DOWN_MASK), name);
+        board.getActionMap().put(name, new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                int zoom = step == Integer.MIN_VALUE ? 0 : renderer.getZoom() + step;
+                zoomAt(zoom, null);
+            }
+        });
+    }
+
+    /**
+     * Panneau de défilement sans bordure autour du plateau
+     */
+    public static JScrollPane scrollPane(JComponent board) {
+        JScrollPane scroll = new JScrollPane(board);
+        scroll.setBorder(null);
+        scroll.getVerticalScrollBar().setUnitIncrement(SCROLL_UNIT);
+        scroll.getHorizontalScrollBar().setUnitIncrement(SCROLL_UNIT);
+        return scroll;
+    }
+
+    /**
+     * Taille préférée de la fenêtre, limitée à l'écran pour les grands plateaux
+     */
+    public static void fitToScreen(Window frame) {
+        frame.pack();
+        if (GraphicsEnvironment.isHeadless())
+            return;
+        Rectangle screen = frame.getGraphicsConfiguration().getBounds();
+        frame.setSize(Math.min(frame.getWidth(), screen.width * 9 / 10),
+                Math.min(frame.getHeight(), screen.height * 9 / 10));
+    }
+
+    /**
+     * À appeler quand le plateau change de taille (chargement d'une partie)
+     */
+    public void resized() {
+        Dimension size = renderer.getBoardSize(engine.get());
+        board.setPreferredSize(size);
+        board.revalidate();
+    }
+
+    /**
+     * Change de niveau de zoom en gardant sous le point donné (coordonnées du
+     * plateau, null pour le centre de la vue) la même case
+     */
+    public void zoomAt(int zoom, Point anchor) {
+        int old = renderer.getZoom();
+        renderer.setZoom(zoom);
+        if (renderer.getZoom() == old)
+            return;
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, board);
+        if (viewport == null) {
+            resized();
+            board.repaint();
+            return;
+        }
+
+        Rectangle view = viewport.getViewRect();
+        if (anchor == null)
+            anchor = new Point(view.x + view.width / 2, view.y + view.height / 2);
+        int offsetX = anchor.x - view.x;
+        int offsetY = anchor.y - view.y;
+
+        BoardEngine current = engine.get();
+        double scale = renderer.getCellPixels() / renderer.getCellPixels(old);
+        Dimension size = renderer.getBoardSize(current);
+        int x = (int) Math.round(anchor.x * scale) - offsetX;
+        int y = (int) Math.round(anchor.y * scale) - offsetY;
+        x = Math.max(0, Math.min(x, size.width - view.width));
+        y = Math.max(0, Math.min(y, size.height - view.height));
+
+        // Taille appliquée tout de suite pour que la position soit acceptée
+        board.setPreferredSize(size);
+        board.setSize(size);
+        viewport.setViewPosition(new Point(x, y));
+        board.revalidate();
+        board.repaint();
+    }
+
+    /**
+     * Ctrl + molette : zoom ; sinon le défilement normal du JScrollPane
+     * (un écouteur de molette sur le plateau l'intercepterait)
+     */
+    private void wheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+            zoomAt(renderer.getZoom() + e.getWheelRotation(), e.getPoint());
+            return;
+        }
+        JScrollPane scroll = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, board);
+        if (scroll != null)
+            scroll.dispatchEvent(SwingUtilities.convertMouseEvent(board, e, scroll));
+    }
+}
@@ -0,0 +1,156 @@
+package mines;
+
+import static mines.DeltaEncoder.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Côté client : reconstruit l'état visible d'une partie à partir des
+ * messages d'un DeltaEncoder (une image complète, puis des deltas).
+ */
+public final class DeltaDecoder {
+
+    private int rows;
+    private int cols;
+    // Octet de chaque case tel qu'encodé : valeur visible et propriétaire + 1
+    private byte[] cells;
+    private int[] scores = new int[0];
+    private int current;
+    private byte state;
+    private int mines_left;
+    private int sequence = -1;
+
+    /**
+     * Applique un message. Un delta doit suivre immédiatement le message
+     * précédent ; une image complète est acceptée à tout moment.
+     */
+    public void apply(ByteBuffer in) {
+        byte type = in.get();
+        int number = getVarint(in);
+
+        if (type == KEYFRAME) {
+            readKeyframeHeader(in);
+        } else if (type == DELTA) {
+            if (cells == null || number != sequence + 1)
+                throw new IllegalArgumentException("Delta hors séquence: " + number + " après " + sequence);
+            readStatus(in);
+            int changed_scores = in.get();
+            for (int i = 0; i < changed_scores; i++) {
+                int player = in.get();
+                scores[player] = unzigzag(getVarint(in));
+            }
+        } else {
+            throw new IllegalArgumentException("Message d'état inconnu: " + type);
+        }
+        sequence = number;
+
+        int runs = getVarint(in);
+        int position = 0;
+        for (int r = 0; r < runs; r++) {
+            position += getVarint(in);
+            int length = getVarint(in);
+            if (position < 0 || length > cells.length - position)
+                throw new IllegalArgumentException("Plage hors de la grille: " + position + "+" + length);
+            int end = position + length;
+            while (position < end) {
+                int token = getVarint(in);
+                int count = token >>> 1;
+                if (count == 0 || count > end - position)
+                    throw new IllegalArgumentException("Répétition hors de la plage: " + count);
+                if ((token & 1) != 0)
+                    Arrays.fill(cells, position, position + count, in.get());
+                else
+                    in.get(cells, position, count);
+                position += count;
+            }
+        }
+    }
+
+    private void readKeyframeHeader(ByteBuffer in) {
+        int rows = getVarint(in);
+        int cols = getVarint(in);
+        int players = in.get();
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE || players < 0)
+            throw new IllegalArgumentException("Image invalide: " + rows + "x" + cols + ", " + players + " joueurs");
+
+        if (cells == null || cells.length != rows * cols)
+            cells = new byte[rows * cols];
+        Arrays.fill(cells, (byte) CELL_COVERED);
+        this.rows = rows;
+        this.cols = cols;
+
+        readStatus(in);
+        if (scores.length != players)
+            scores = new int[players];
+        for (int i = 0; i < players; i++)
+            scores[i] = unzigzag(getVarint(in));
+    }
+
+    private void readStatus(ByteBuffer in) {
+        current = in.get();
+        state = in.get();
+        mines_left = getVarint(in);
+    }
+
+    /**
+     * Vrai une fois la première image reçue
+     */
+    public boolean isReady() {
+        return cells != null;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getAllCells() {
+        return cells.length;
+    }
+
+    /**
+     * Valeur visible : 0-9 si découverte, CELL_COVERED ou CELL_FLAGGED sinon
+     */
+    public int getCell(int position) {
+        return cells[position] & 0x0F;
+    }
+
+    public boolean isCovered(int position) {
+        return getCell(position) >= CELL_COVERED;
+    }
+
+    public int getOwner(int position) {
+        return ((cells[position] & 0xFF) >>> 4) - 1;
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public int getPlayerCount() {
+        return scores.length;
+    }
+
+    public int getCurrentPlayer() {
+        return current;
+    }
+
+    /**
+     * MatchProtocol.STATE_*
+     */
+    public byte getState() {
+        return state;
+    }
+
+    public int getMinesLeft() {
+        return mines_left;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,294 @@
+package mines;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodage de l'état d'un MultiplayerGame pour des clients distants : une
+ * image complète (keyframe) pour qui arrive en cours de partie, puis après
+ * chaque coup un delta des seules cases modifiées (voir DeltaDecoder).
+ *
+ * Message : type (KEYFRAME ou DELTA), numéro de séquence, joueur courant,
+ * état (MatchProtocol.STATE_*), drapeaux restants, scores (tous pour une
+ * image, ceux qui ont changé pour un delta), puis des plages de cases
+ * consécutives : écart depuis la fin de la plage précédente, longueur et
+ * les octets des cases (bits 0-3 : CELL_* ou chiffre découvert, bits 4-7 :
+ * propriétaire + 1). Les entiers sont des varints, les scores en zigzag.
+ *
+ * Les octets d'une plage sont compressés par répétitions : varint n * 2 + 1
+ * puis un octet répété n fois, ou varint n * 2 puis n octets tels quels.
+ * Une propagation ouvre surtout des cases vides du même joueur : une ligne
+ * de cases vides tient en quelques octets.
+ */
+public final class DeltaEncoder {
+
+    public static final byte KEYFRAME = 1;
+    public static final byte DELTA = 2;
+
+    /** Valeurs d'une case non découverte (0-9 : case découverte) */
+    public static final int CELL_COVERED = 10;
+    public static final int CELL_FLAGGED = 11;
+
+    /** Le propriétaire tient sur 4 bits */
+    public static final int MAX_PLAYERS = 14;
+
+    // Deux plages séparées d'au plus MERGE_GAP cases sont fusionnées : moins
+    // cher que l'en-tête d'une nouvelle plage
+    private static final int MERGE_GAP = 2;
+    // Répétitions plus courtes laissées dans les octets tels quels
+    private static final int MIN_REPEAT = 3;
+
+    private final MultiplayerGame game;
+    private final int[] last_scores;
+    private int sequence;
+    private ByteBuffer buffer = ByteBuffer.allocate(256);
+    private int[] sorted = new int[64];
+    private byte[] run_bytes = new byte[64];
+
+    /**
+     * Suit les changements du moteur de la partie ; le premier message envoyé
+     * à un client doit être keyframe()
+     */
+    public DeltaEncoder(MultiplayerGame game) {
+        if (game.getPlayerCount() > MAX_PLAYERS)
+            throw new IllegalArgumentException("Trop de joueurs: " + game.getPlayerCount());
+
+        this.game = game;
+        this.last_scores = game.getScores();
+        BoardEngine engine = game.getEngine();
+        engine.trackChangedCells(true);
+        engine.clearChangedCells();
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Image complète au numéro de séquence courant, sans consommer les
+     * changements en attente. Tampon interne, valable jusqu'au prochain appel.
+     */
+    public ByteBuffer keyframe() {
+        BoardEngine engine = game.getEngine();
+        buffer.clear();
+        buffer.put(KEYFRAME);
+        putVarint(buffer, sequence);
+        putVarint(buffer, engine.getRows());
+        putVarint(buffer, engine.getCols());
+        buffer.put((byte) game.getPlayerCount());
+        putStatus(engine);
+        for (int i = 0; i < game.getPlayerCount(); i++)
+            putVarint(buffer, zigzag(game.getScore(i)));
+
+        // Plages des cases qui ne sont pas simplement couvertes
+        int runs_at = reserveRunCount();
+        int runs = 0;
+        int last_end = 0;
+        int all_cells = engine.getAllCells();
+        int i = 0;
+        while (i < all_cells) {
+            if (state(engine, i) == CELL_COVERED) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int end = i + 1;
+            while (end < all_cells) {
+                if (state(engine, end) != CELL_COVERED) {
+                    end++;
+                } else if (end + MERGE_GAP < all_cells && hasStateWithin(engine, end, MERGE_GAP)) {
+                    end += MERGE_GAP;
+                } else {
+                    break;
+                }
+            }
+            putRun(engine, start - last_end, start, end);
+            runs++;
+            last_end = end;
+            i = end;
+        }
+        return finish(runs_at, runs);
+    }
+
+    private boolean hasStateWithin(BoardEngine engine, int from, int gap) {
+        for (int k = 1; k <= gap; k++) {
+            if (state(engine, from + k) != CELL_COVERED)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Changements depuis le message précédent, ou une image complète si la
+     * grille a été entièrement renouvelée. Tampon interne, valable jusqu'au
+     * prochain appel.
+     */
+    public ByteBuffer delta() {
+        BoardEngine engine = game.getEngine();
+        if (engine.isAllChanged()) {
+            sequence++;
+            engine.clearChangedCells();
+            saveScores();
+            return keyframe();
+        }
+
+        sequence++;
+        buffer.clear();
+        buffer.put(DELTA);
+        putVarint(buffer, sequence);
+        putStatus(engine);
+
+        int changed_scores = 0;
+        for (int i = 0; i < last_scores.length; i++) {
+            if (game.getScore(i) != last_scores[i])
+                changed_scores++;
+        }
+        buffer.put((byte) changed_scores);
+        for (int i = 0; i < last_scores.length; i++) {
+            if (game.getScore(i) != last_scores[i]) {
+                buffer.put((byte) i);
+                putVarint(buffer, zigzag(game.getScore(i)));
+            }
+        }
+        saveScores();
+
+        // Cases modifiées triées et dédoublonnées, puis regroupées en plages
+        int count = engine.getChangedCellCount();
+        if (sorted.length < count)
+            sorted = new int[Math.max(count, sorted.length * 2)];
+        System.arraycopy(engine.getChangedCells(), 0, sorted, 0, count);
+        engine.clearChangedCells();
+        Arrays.sort(sorted, 0, count);
+
+        int runs_at = reserveRunCount();
+        int runs = 0;
+        int last_end = 0;
+        int k = 0;
+        while (k < count) {
+            int start = sorted[k];
+            int end = start + 1;
+            k++;
+            while (k < count && sorted[k] <= end + MERGE_GAP) {
+                end = Math.max(end, sorted[k] + 1);
+                k++;
+            }
+            putRun(engine, start - last_end, start, end);
+            runs++;
+            last_end = end;
+        }
+        return finish(runs_at, runs);
+    }
+
+    private void saveScores() {
+        for (int i = 0; i < last_scores.length; i++)
+            last_scores[i] = game.getScore(i);
+    }
+
+    private void putStatus(BoardEngine engine) {
+        buffer.put((byte) game.getCurrentPlayer());
+        buffer.put(engine.isWon() ? MatchProtocol.STATE_WON
+                : engine.isLost() ? MatchProtocol.STATE_LOST : MatchProtocol.STATE_PLAYING);
+        putVarint(buffer, engine.getMinesLeft());
+    }
+
+    /**
+     * Le nombre de plages n'est connu qu'à la fin : 4 octets réservés, écrits
+     * en varint sur 4 octets fixes
+     */
+    private int reserveRunCount() {
+        ensure(4);
+        int at = buffer.position();
+        buffer.position(at + 4);
+        return at;
+    }
+
+    private ByteBuffer finish(int runs_at, int runs) {
+        buffer.put(runs_at, (byte) (0x80 | (runs & 0x7F)));
+        buffer.put(runs_at + 1, (byte) (0x80 | ((runs >>> 7) & 0x7F)));
+        buffer.put(runs_at + 2, (byte) (0x80 | ((runs >>> 14) & 0x7F)));
+        buffer.put(runs_at + 3, (byte) (runs >>> 21));
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private void putRun(BoardEngine engine, int gap, int start, int end) {
+        int length = end - start;
+        if (run_bytes.length < length)
+            run_bytes = new byte[Math.max(length, run_bytes.length * 2)];
+        for (int i = 0; i < length; i++)
+            run_bytes[i] = (byte) ((game.getOwner(start + i) + 1) << 4 | state(engine, start + i));
+
+        // Au pire un en-tête de 5 octets par octet littéral isolé entre deux répétitions
+        ensure(10 + 2 * length);
+        putVarint(buffer, gap);
+        putVarint(buffer, length);
+
+        int literal = 0;
+        int i = 0;
+        while (i < length) {
+            int j = i + 1;
+            while (j < length && run_bytes[j] == run_bytes[i])
+                j++;
+            if (j - i < MIN_REPEAT) {
+                i = j;
+                continue;
+            }
+            putLiteral(literal, i);
+            putVarint(buffer, (j - i) << 1 | 1);
+            buffer.put(run_bytes[i]);
+            literal = i = j;
+        }
+        putLiteral(literal, length);
+    }
+
+    private void putLiteral(int from, int to) {
+        if (from == to)
+            return;
+        putVarint(buffer, (to - from) << 1);
+        buffer.put(run_bytes, from, to - from);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    /**
+     * Valeur visible d'une case (une case couverte n'a jamais de propriétaire)
+     */
+    private static int state(BoardEngine engine, int position) {
+        if (!engine.isCovered(position))
+            return engine.getCell(position);
+        return engine.isMarked(position) ? CELL_FLAGGED : CELL_COVERED;
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Varint trop long");
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,184 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sauvegarde binaire d'une partie, lue et écrite par projection mémoire.
+ *
+ * Format (version 1, gros-boutiste) :
+ * en-tête "MINS", version, indicateurs, dimensions, mines, drapeaux restants,
+ * graine ; joueur courant et scores ; grille à 3 bits par case
+ * (BoardEngine.writeGrid) ; en multijoueur, propriétaire de chaque case sur
+ * 4 bits (indice du joueur + 1, 0 sans propriétaire).
+ */
+public final class GameFile {
+
+    public static final int MAGIC = 0x4D494E53;
+    public static final short VERSION = 1;
+    /** Propriétaires sur 4 bits, 0 réservé à « aucun » */
+    public static final int MAX_PLAYERS = 15;
+
+    private static final int FLAG_IN_GAME = 1;
+    private static final int FLAG_DEFERRED = 2;
+    private static final int FLAG_OWNERS = 4;
+    private static final int KNOWN_FLAGS = FLAG_IN_GAME | FLAG_DEFERRED | FLAG_OWNERS;
+
+    private static final int HEADER_BYTES = 4 + 2 + 1 + 4 * 4 + 8 + 1 + 1;
+
+    private final BoardEngine engine;
+    private final byte[] owners;
+    private final int[] scores;
+    private final int currentPlayer;
+
+    /**
+     * Partie solo
+     */
+    public GameFile(BoardEngine engine) {
+        this(engine, null, new int[0], 0);
+    }
+
+    /**
+     * Partie multijoueur : owners contient l'indice du joueur ou -1
+     */
+    public GameFile(BoardEngine engine, byte[] owners, int[] scores, int currentPlayer) {
+        if (owners != null && owners.length != engine.getAllCells())
+            throw new IllegalArgumentException("Taille des propriétaires invalide: " + owners.length);
+        if (scores.length > MAX_PLAYERS)
+            throw new IllegalArgumentException("Trop de joueurs: " + scores.length);
+        if (currentPlayer < 0 || currentPlayer >= Math.max(1, scores.length))
+            throw new IllegalArgumentException("Joueur courant invalide: " + currentPlayer);
+
+        this.engine = engine;
+        this.owners = owners;
+        this.scores = scores;
+        this.currentPlayer = currentPlayer;
+    }
+
+    public void save(Path path) throws IOException {
+        int cells = engine.getAllCells();
+        long size = HEADER_BYTES + 4L * scores.length + engine.packedGridBytes()
+                + (owners != null ? (cells + 1) / 2 : 0);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            int flags = (engine.isInGame() ? FLAG_IN_GAME : 0)
+                    | (engine.isDeferred() ? FLAG_DEFERRED : 0)
+                    | (owners != null ? FLAG_OWNERS : 0);
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+            out.put((byte) flags);
+            out.putInt(engine.getRows());
+            out.putInt(engine.getCols());
+            out.putInt(engine.getMines());
+            out.putInt(engine.getMinesLeft());
+            out.putLong(engine.getSeed());
+            out.put((byte) currentPlayer);
+            out.put((byte) scores.length);
+            for (int score : scores)
+                out.putInt(score);
+
+            engine.writeGrid(out);
+
+            if (owners != null) {
+                byte[] packed = new byte[(cells + 1) / 2];
+                for (int i = 0; i < cells; i += 2) {
+                    int low = owners[i] + 1;
+                    int high = i + 1 < cells ? owners[i + 1] + 1 : 0;
+                    packed[i >> 1] = (byte) (low | (high << 4));
+                }
+                out.put(packed);
+            }
+            out.force();
+        }
+    }
+
+    public static GameFile load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Fichier de sauvegarde tronqué: " + path);
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.getInt() != MAGIC)
+                throw new IOException("Pas une sauvegarde de démineur: " + path);
+            short version = in.getShort();
+            if (version != VERSION)
+                throw new IOException("Version de sauvegarde non supportée: " + version);
+
+            int flags = in.get() & 0xFF;
+            if ((flags & ~KNOWN_FLAGS) != 0)
+                throw new IOException("Sauvegarde corrompue: indicateurs " + flags);
+            BoardConfig config;
+            try {
+                config = new BoardConfig(in.getInt(), in.getInt(), in.getInt());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Sauvegarde corrompue: " + e.getMessage(), e);
+            }
+            int minesLeft = in.getInt();
+            if (minesLeft < 0 || minesLeft > config.getMines())
+                throw new IOException("Sauvegarde corrompue: drapeaux restants " + minesLeft);
+            long seed = in.getLong();
+            int currentPlayer = in.get();
+            int players = in.get();
+            if (players < 0 || players > MAX_PLAYERS)
+                throw new IOException("Sauvegarde corrompue: " + players + " joueurs");
+            if (currentPlayer < 0 || currentPlayer >= Math.max(1, players))
+                throw new IOException("Sauvegarde corrompue: joueur courant " + currentPlayer);
+            int[] scores = new int[players];
+
+            BoardEngine engine = new BoardEngine(config);
+            long expected = HEADER_BYTES + 4L * scores.length + engine.packedGridBytes()
+                    + ((flags & FLAG_OWNERS) != 0 ? (config.getAllCells() + 1) / 2 : 0);
+            if (channel.size() < expected)
+                throw new IOException("Fichier de sauvegarde tronqué: " + path);
+
+            for (int i = 0; i < scores.length; i++)
+                scores[i] = in.getInt();
+
+            engine.readGrid(in, seed, minesLeft,
+                    (flags & FLAG_IN_GAME) != 0, (flags & FLAG_DEFERRED) != 0);
+
+            byte[] owners = null;
+            if ((flags & FLAG_OWNERS) != 0) {
+                int cells = config.getAllCells();
+                owners = new byte[cells];
+                byte[] packed = new byte[(cells + 1) / 2];
+                in.get(packed);
+                for (int i = 0; i < cells; i += 2) {
+                    int low = packed[i >> 1] & 0x0F;
+                    int high = (packed[i >> 1] >> 4) & 0x0F;
+                    if (low > players || high > players)
+                        throw new IOException("Sauvegarde corrompue: propriétaire hors des joueurs à la case " + i);
+                    owners[i] = (byte) (low - 1);
+                    if (i + 1 < cells)
+                        owners[i + 1] = (byte) (high - 1);
+                }
+            }
+            return new GameFile(engine, owners, scores, currentPlayer);
+        }
+    }
+
+    public BoardEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Propriétaires des cases, null pour une partie solo
+     */
+    public byte[] getOwners() {
+        return owners;
+    }
+
+    public int[] getScores() {
+        return scores;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+}
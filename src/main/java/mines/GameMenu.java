@@ -0,0 +1,55 @@
+package mines;
+
+import java.awt.Component;
+import java.io.IOException;
+
+import javax.swing.JFileChooser;
+import javax.swing.JMenu;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
+
+/**
+ * Menu « Partie » commun aux fenêtres : sauvegarde et chargement
+ */
+public final class GameMenu {
+
+    private GameMenu() {
+    }
+
+    public static JMenuBar create(Component parent, SavableBoard board) {
+        JFileChooser chooser = new JFileChooser();
+
+        JMenuItem save = new JMenuItem("Sauvegarder...");
+        save.addActionListener(e -> {
+            if (chooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION)
+                return;
+            try {
+                board.save(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(parent, "Sauvegarde impossible: " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        JMenuItem load = new JMenuItem("Charger...");
+        load.addActionListener(e -> {
+            if (chooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION)
+                return;
+            try {
+                board.load(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(parent, "Chargement impossible: " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        JMenu menu = new JMenu("Partie");
+        menu.add(save);
+        menu.add(load);
+
+        JMenuBar bar = new JMenuBar();
+        bar.add(menu);
+        return bar;
+    }
+}
@@ -0,0 +1,261 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Relecture headless d'un MoveJournal : reconstruit n'importe quelle partie,
+ * coup par coup, dans un MultiplayerGame.
+ *
+ * Pour aller directement au coup n, une image de la partie est gardée tous
+ * les SNAPSHOT_INTERVAL coups (prises au premier accès à la partie) : on
+ * repart de la plus proche et on ne rejoue que la fin.
+ */
+public final class GameReplay {
+
+    public static final int SNAPSHOT_INTERVAL = 4096;
+
+    private final BoardConfig config;
+
+    // Parties : mode, nombre de joueurs, graine, premier coup et nombre de coups
+    private int game_count;
+    private byte[] modes = new byte[16];
+    private byte[] players = new byte[16];
+    private long[] seeds = new long[16];
+    private int[] first_move = new int[16];
+    private int[] move_count = new int[16];
+
+    // Coups de toutes les parties, à la suite
+    private int total_moves;
+    private byte[] buttons = new byte[1024];
+    private int[] cells = new int[1024];
+    private byte[] movers = new byte[1024];
+
+    private final Snapshot[][] snapshots;
+
+    private GameReplay(BoardConfig config, ByteBuffer in) {
+        this.config = config;
+        parse(in);
+        this.snapshots = new Snapshot[game_count][];
+    }
+
+    public static GameReplay load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BoardConfig config = MoveJournal.readHeader(in, path);
+            return new GameReplay(config, in);
+        }
+    }
+
+    /**
+     * Découpe le journal en parties ; les coups suivant une partie chargée
+     * sont ignorés, comme un éventuel enregistrement incomplet final
+     */
+    private void parse(ByteBuffer in) {
+        boolean replayable = false;
+        while (in.hasRemaining()) {
+            byte type = in.get(in.position());
+            int size = MoveJournal.recordBytes(type);
+            if (size < 0 || in.remaining() < size)
+                break;
+            in.get();
+
+            if (type == MoveJournal.RECORD_GAME) {
+                addGame(in.get(), in.get(), in.getLong());
+                replayable = true;
+            } else if (type == MoveJournal.RECORD_LOADED) {
+                replayable = false;
+            } else {
+                int cell = in.getInt();
+                byte mover = in.get();
+                if (replayable && cell >= 0 && cell < config.getAllCells())
+                    addMove(type, cell, mover);
+            }
+        }
+    }
+
+    private void addGame(byte mode, byte count, long seed) {
+        if (game_count == seeds.length) {
+            int capacity = game_count * 2;
+            modes = Arrays.copyOf(modes, capacity);
+            players = Arrays.copyOf(players, capacity);
+            seeds = Arrays.copyOf(seeds, capacity);
+            first_move = Arrays.copyOf(first_move, capacity);
+            move_count = Arrays.copyOf(move_count, capacity);
+        }
+        modes[game_count] = mode;
+        players[game_count] = count;
+        seeds[game_count] = seed;
+        first_move[game_count] = total_moves;
+        game_count++;
+    }
+
+    private void addMove(byte button, int cell, byte mover) {
+        if (total_moves == cells.length) {
+            int capacity = total_moves * 2;
+            buttons = Arrays.copyOf(buttons, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+            movers = Arrays.copyOf(movers, capacity);
+        }
+        buttons[total_moves] = button;
+        cells[total_moves] = cell;
+        movers[total_moves] = mover;
+        total_moves++;
+        move_count[game_count - 1]++;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int getGameCount() {
+        return game_count;
+    }
+
+    public int getMoveCount(int game) {
+        return move_count[game];
+    }
+
+    public int getTotalMoveCount() {
+        return total_moves;
+    }
+
+    public long getSeed(int game) {
+        return seeds[game];
+    }
+
+    public int getMode(int game) {
+        return modes[game];
+    }
+
+    public int getPlayerCount(int game) {
+        return players[game];
+    }
+
+    /**
+     * Partie entière rejouée
+     */
+    public MultiplayerGame replay(int game) {
+        return seek(game, move_count[game]);
+    }
+
+    /**
+     * État de la partie après ses move premiers coups
+     */
+    public MultiplayerGame seek(int game, int move) {
+        if (move < 0 || move > move_count[game])
+            throw new IndexOutOfBoundsException("Coup " + move + " sur " + move_count[game]);
+
+        Snapshot[] images = snapshotsOf(game);
+        Snapshot image = images[move / SNAPSHOT_INTERVAL];
+        MultiplayerGame state = image == null ? start(game) : image.restore(config, players[game]);
+
+        int from = image == null ? 0 : image.move;
+        apply(state, game, from, move);
+        return state;
+    }
+
+    /**
+     * Images de la partie, prises en la rejouant entièrement la première fois
+     */
+    private Snapshot[] snapshotsOf(int game) {
+        if (snapshots[game] != null)
+            return snapshots[game];
+
+        int count = move_count[game];
+        Snapshot[] images = new Snapshot[count / SNAPSHOT_INTERVAL + 1];
+        MultiplayerGame state = start(game);
+        for (int k = 1; k < images.length; k++) {
+            apply(state, game, (k - 1) * SNAPSHOT_INTERVAL, k * SNAPSHOT_INTERVAL);
+            images[k] = new Snapshot(state, k * SNAPSHOT_INTERVAL);
+        }
+        snapshots[game] = images;
+        return images;
+    }
+
+    private MultiplayerGame start(int game) {
+        BoardEngine engine = new BoardEngine(config);
+        switch (modes[game]) {
+            case MoveJournal.MODE_DEFERRED:
+                engine.newGameDeferred(seeds[game]);
+                break;
+            case MoveJournal.MODE_NO_GUESS:
+            case MoveJournal.MODE_OPENED:
+                NoGuessGenerator.deal(engine, seeds[game]);
+                break;
+            default:
+                engine.newGame(seeds[game]);
+                break;
+        }
+        return new MultiplayerGame(engine, players[game]);
+    }
+
+    /**
+     * Rejoue les coups [from, to) de la partie, comme MinesAdapter.mousePressed
+     */
+    private void apply(MultiplayerGame state, int game, int from, int to) {
+        BoardEngine engine = state.getEngine();
+        int base = first_move[game];
+
+        for (int m = base + from; m < base + to; m++) {
+            int cell = cells[m];
+            if (state.isMultiplayer() && movers[m] != state.getCurrentPlayer())
+                throw new IllegalStateException("Journal incohérent au coup " + (m - base)
+                        + " de la partie " + game + ": joueur " + movers[m]
+                        + " au lieu de " + state.getCurrentPlayer());
+
+            if (buttons[m] == MoveJournal.BUTTON_RIGHT) {
+                if (engine.isCovered(cell)) {
+                    if (!engine.isMarked(cell))
+                        engine.mark(cell);
+                    else
+                        engine.unmark(cell);
+                }
+            } else if (!engine.isMarked(cell)) {
+                state.reveal(cell);
+            }
+        }
+    }
+
+    /**
+     * Partie figée après un nombre de coups : grille compactée comme dans GameFile
+     */
+    private static final class Snapshot {
+        final int move;
+        final ByteBuffer grid;
+        final long seed;
+        final int mines_left;
+        final boolean in_game;
+        final boolean deferred;
+        final byte[] owners;
+        final int[] scores;
+        final int current;
+
+        Snapshot(MultiplayerGame state, int move) {
+            BoardEngine engine = state.getEngine();
+            this.move = move;
+            this.grid = ByteBuffer.allocate((int) engine.packedGridBytes());
+            engine.writeGrid(grid);
+            this.seed = engine.getSeed();
+            this.mines_left = engine.getMinesLeft();
+            this.in_game = engine.isInGame();
+            this.deferred = engine.isDeferred();
+            this.owners = state.getOwners().clone();
+            this.scores = state.getScores();
+            this.current = state.getCurrentPlayer();
+        }
+
+        MultiplayerGame restore(BoardConfig config, int players) {
+            BoardEngine engine = new BoardEngine(config);
+            engine.readGrid(grid.duplicate().clear(), seed, mines_left, in_game, deferred);
+            MultiplayerGame state = new MultiplayerGame(engine, players);
+            state.restore(engine, owners.clone(), scores, current);
+            return state;
+        }
+    }
+}
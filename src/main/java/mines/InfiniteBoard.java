@@ -0,0 +1,505 @@
+package mines;
+
+import static mines.BoardEngine.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Démineur infini : la grille est une table creuse de blocs de
+ * CHUNK_SIZE x CHUNK_SIZE cases, créés seulement quand un clic ou une
+ * propagation les atteint. Les mines d'un bloc ne dépendent que de la graine
+ * et des coordonnées du bloc, ses chiffres des mines des blocs voisins.
+ *
+ * Au-delà de cachedChunks blocs en mémoire, le moins récemment utilisé est
+ * écrit dans le répertoire (s'il a été modifié) puis oublié : la mémoire ne
+ * dépend pas de la distance parcourue. Un bloc jamais modifié est simplement
+ * régénéré.
+ *
+ * Les cases utilisent le codage de BoardEngine (COVER_FOR_CELL, MARK_FOR_CELL).
+ * Le point (0, 0) et ses voisines n'ont jamais de mine. Non thread-safe.
+ */
+public final class InfiniteBoard implements Closeable {
+
+    public static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    /** Environ 20 % de mines, comme le niveau expert */
+    public static final int DEFAULT_MINES_PER_CHUNK = 800;
+    /** Sous environ 11 % de mines, les zones vides ne sont plus bornées : une propagation ne s'arrêterait pas */
+    public static final int MIN_MINES_PER_CHUNK = 450;
+    public static final int DEFAULT_CACHED_CHUNKS = 256;
+    private static final int MIN_CACHED_CHUNKS = 16;
+    // Mines des blocs récents : un bloc neuf partage six voisins avec le précédent
+    private static final int CACHED_MASKS = 64;
+
+    static final int MAGIC = 0x4D494E46;
+    static final int CHUNK_MAGIC = 0x4D43484B;
+    static final short VERSION = 1;
+    private static final String BOARD_FILE = "board.bin";
+    private static final int BOARD_BYTES = 4 + 2 + 8 + 4 + 8 + 8 + 1;
+    private static final int CHUNK_FILE_BYTES = 4 + 2 + CHUNK_CELLS / 4;
+
+    // États sur 2 bits dans les fichiers de bloc
+    private static final int SAVED_COVERED = 0;
+    private static final int SAVED_REVEALED = 1;
+    private static final int SAVED_FLAGGED = 2;
+
+    private final long seed;
+    private final int mines_per_chunk;
+    private final int cached_chunks;
+    private final Path directory;
+    private final LinkedHashMap<Long, Chunk> chunks;
+
+    // Dernier bloc utilisé : la plupart des accès restent dans le même bloc
+    private Chunk last;
+
+    private boolean inGame = true;
+    private long revealed;
+    private long flags;
+
+    private long chunks_created;
+    private long chunks_loaded;
+    private long chunks_evicted;
+
+    // Pile de la propagation : coordonnées x et y
+    private int[] stack_x = new int[64];
+    private int[] stack_y = new int[64];
+    private int stack_size;
+
+    // Mines du bloc et de ses voisins, bordure comprise, pour le calcul des chiffres
+    private final byte[] neighbourhood = new byte[(CHUNK_SIZE + 2) * (CHUNK_SIZE + 2)];
+    private final LinkedHashMap<Long, long[]> masks = new LinkedHashMap<>(CACHED_MASKS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+            return size() > CACHED_MASKS;
+        }
+    };
+
+    public InfiniteBoard(long seed, Path directory) throws IOException {
+        this(seed, DEFAULT_MINES_PER_CHUNK, DEFAULT_CACHED_CHUNKS, directory);
+    }
+
+    /**
+     * Ouvre ou crée une partie dans directory ; une partie existante doit
+     * avoir la même graine et la même densité
+     */
+    public InfiniteBoard(long seed, int minesPerChunk, int cachedChunks, Path directory) throws IOException {
+        if (minesPerChunk < MIN_MINES_PER_CHUNK || minesPerChunk > CHUNK_CELLS - 9)
+            throw new IllegalArgumentException("Mines par bloc invalides: " + minesPerChunk);
+        if (cachedChunks < MIN_CACHED_CHUNKS)
+            throw new IllegalArgumentException("Trop peu de blocs en mémoire: " + cachedChunks);
+
+        this.seed = seed;
+        this.mines_per_chunk = minesPerChunk;
+        this.cached_chunks = cachedChunks;
+        this.directory = directory;
+        this.chunks = new LinkedHashMap<>(cachedChunks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= cached_chunks)
+                    return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+
+        Files.createDirectories(directory);
+        readBoardFile();
+    }
+
+    private void readBoardFile() throws IOException {
+        Path path = directory.resolve(BOARD_FILE);
+        ByteBuffer in;
+        try {
+            in = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (in.remaining() < BOARD_BYTES || in.getInt() != MAGIC)
+            throw new IOException("Pas une partie infinie: " + path);
+        short version = in.getShort();
+        if (version != VERSION)
+            throw new IOException("Version non supportée: " + version);
+        if (in.getLong() != seed || in.getInt() != mines_per_chunk)
+            throw new IOException("Partie d'une autre graine ou densité: " + directory);
+        revealed = in.getLong();
+        flags = in.getLong();
+        inGame = in.get() != 0;
+    }
+
+    /**
+     * Découvre une case. Retourne false si elle était déjà découverte ou
+     * marquée, ou si la partie est perdue.
+     */
+    public boolean reveal(int x, int y) {
+        Chunk chunk = chunk(x, y);
+        int i = index(x, y);
+        if (!inGame || chunk.field[i] <= MINE_CELL || chunk.field[i] > COVERED_MINE_CELL)
+            return false;
+
+        chunk.field[i] -= COVER_FOR_CELL;
+        chunk.dirty = true;
+        if (chunk.field[i] == MINE_CELL) {
+            inGame = false;
+            return true;
+        }
+
+        revealed++;
+        if (chunk.field[i] == EMPTY_CELL)
+            flood(x, y);
+        return true;
+    }
+
+    /**
+     * Propagation d'une case vide, d'un bloc à l'autre. Comme
+     * BoardEngine.find_empty_cells, les drapeaux rencontrés sont retirés.
+     */
+    private void flood(int x, int y) {
+        stack_size = 0;
+        push(x, y);
+
+        while (stack_size > 0) {
+            stack_size--;
+            int cx = stack_x[stack_size];
+            int cy = stack_y[stack_size];
+
+            for (int ny = cy - 1; ny <= cy + 1; ny++) {
+                for (int nx = cx - 1; nx <= cx + 1; nx++) {
+                    Chunk chunk = chunk(nx, ny);
+                    int i = index(nx, ny);
+                    if (chunk.field[i] <= MINE_CELL)
+                        continue;
+                    if (chunk.field[i] > COVERED_MINE_CELL) {
+                        chunk.field[i] -= MARK_FOR_CELL;
+                        flags--;
+                    }
+                    chunk.field[i] -= COVER_FOR_CELL;
+                    chunk.dirty = true;
+                    revealed++;
+                    if (chunk.field[i] == EMPTY_CELL)
+                        push(nx, ny);
+                }
+            }
+        }
+    }
+
+    private void push(int x, int y) {
+        if (stack_size == stack_x.length) {
+            stack_x = Arrays.copyOf(stack_x, stack_size * 2);
+            stack_y = Arrays.copyOf(stack_y, stack_size * 2);
+        }
+        stack_x[stack_size] = x;
+        stack_y[stack_size] = y;
+        stack_size++;
+    }
+
+    /**
+     * Pose ou retire un drapeau sur une case couverte
+     */
+    public boolean toggleFlag(int x, int y) {
+        Chunk chunk = chunk(x, y);
+        int i = index(x, y);
+        if (!inGame || chunk.field[i] <= MINE_CELL)
+            return false;
+
+        if (chunk.field[i] > COVERED_MINE_CELL) {
+            chunk.field[i] -= MARK_FOR_CELL;
+            flags--;
+        } else {
+            chunk.field[i] += MARK_FOR_CELL;
+            flags++;
+        }
+        chunk.dirty = true;
+        return true;
+    }
+
+    public boolean isCovered(int x, int y) {
+        return getCell(x, y) > MINE_CELL;
+    }
+
+    public boolean isMarked(int x, int y) {
+        return getCell(x, y) > COVERED_MINE_CELL;
+    }
+
+    /**
+     * Valeur codée comme dans BoardEngine (le bloc est créé si besoin)
+     */
+    public int getCell(int x, int y) {
+        return chunk(x, y).field[index(x, y)];
+    }
+
+    public boolean isInGame() {
+        return inGame;
+    }
+
+    public boolean isLost() {
+        return !inGame;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Cases sans mine découvertes depuis le début de la partie
+     */
+    public long getRevealedCount() {
+        return revealed;
+    }
+
+    public long getFlagCount() {
+        return flags;
+    }
+
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    public long getChunksCreated() {
+        return chunks_created;
+    }
+
+    public long getChunksLoaded() {
+        return chunks_loaded;
+    }
+
+    public long getChunksEvicted() {
+        return chunks_evicted;
+    }
+
+    private static int index(int x, int y) {
+        return (y & (CHUNK_SIZE - 1)) * CHUNK_SIZE + (x & (CHUNK_SIZE - 1));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Bloc contenant la case, relu ou généré s'il n'est pas en mémoire
+     */
+    private Chunk chunk(int x, int y) {
+        int cx = x >> CHUNK_SHIFT;
+        int cy = y >> CHUNK_SHIFT;
+        Chunk chunk = last;
+        if (chunk != null && chunk.cx == cx && chunk.cy == cy)
+            return chunk;
+
+        Long key = key(cx, cy);
+        chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = load(cx, cy);
+            chunks.put(key, chunk);
+        }
+        last = chunk;
+        return chunk;
+    }
+
+    private Chunk load(int cx, int cy) {
+        Chunk chunk = generate(cx, cy);
+        Path path = chunkPath(cx, cy);
+        ByteBuffer in;
+        try {
+            in = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            chunks_created++;
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (in.remaining() != CHUNK_FILE_BYTES || in.getInt() != CHUNK_MAGIC || in.getShort() != VERSION)
+            throw new UncheckedIOException(new IOException("Bloc corrompu: " + path));
+        for (int i = 0; i < CHUNK_CELLS; i += 4) {
+            int packed = in.get();
+            for (int k = 0; k < 4; k++, packed >>= 2) {
+                int state = packed & 3;
+                if (state == SAVED_REVEALED)
+                    chunk.field[i + k] -= COVER_FOR_CELL;
+                else if (state == SAVED_FLAGGED)
+                    chunk.field[i + k] += MARK_FOR_CELL;
+            }
+        }
+        chunks_loaded++;
+        return chunk;
+    }
+
+    private void evict(Chunk chunk) {
+        if (chunk == last)
+            last = null;
+        chunks_evicted++;
+        if (chunk.dirty)
+            save(chunk);
+    }
+
+    private void save(Chunk chunk) {
+        ByteBuffer out = ByteBuffer.allocate(CHUNK_FILE_BYTES);
+        out.putInt(CHUNK_MAGIC);
+        out.putShort(VERSION);
+        for (int i = 0; i < CHUNK_CELLS; i += 4) {
+            int packed = 0;
+            for (int k = 0; k < 4; k++) {
+                int cell = chunk.field[i + k];
+                int state = cell <= MINE_CELL ? SAVED_REVEALED
+                        : cell > COVERED_MINE_CELL ? SAVED_FLAGGED : SAVED_COVERED;
+                packed |= state << (2 * k);
+            }
+            out.put((byte) packed);
+        }
+        try {
+            Files.write(chunkPath(chunk.cx, chunk.cy), out.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.dirty = false;
+    }
+
+    private Path chunkPath(int cx, int cy) {
+        return directory.resolve("c" + cx + "_" + cy + ".bin");
+    }
+
+    /**
+     * Écrit les blocs modifiés et l'état de la partie
+     */
+    public void flush() throws IOException {
+        try {
+            for (Chunk chunk : chunks.values()) {
+                if (chunk.dirty)
+                    save(chunk);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(BOARD_BYTES);
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putLong(seed);
+        out.putInt(mines_per_chunk);
+        out.putLong(revealed);
+        out.putLong(flags);
+        out.put((byte) (inGame ? 1 : 0));
+        Files.write(directory.resolve(BOARD_FILE), out.array());
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        chunks.clear();
+        last = null;
+    }
+
+    /**
+     * Grille d'un bloc neuf : mines du bloc, chiffres d'après les 8 blocs voisins
+     */
+    private Chunk generate(int cx, int cy) {
+        Arrays.fill(neighbourhood, (byte) 0);
+        int width = CHUNK_SIZE + 2;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                long[] mine_rows = mask(cx + dx, cy + dy);
+                // Lignes et colonnes du voisin qui tombent dans la bordure
+                int row_from = dy < 0 ? CHUNK_SIZE - 1 : 0;
+                int row_to = dy > 0 ? 0 : CHUNK_SIZE - 1;
+                int col_from = dx < 0 ? CHUNK_SIZE - 1 : 0;
+                int col_to = dx > 0 ? 0 : CHUNK_SIZE - 1;
+                for (int r = row_from; r <= row_to; r++) {
+                    long bits = mine_rows[r];
+                    if (bits == 0)
+                        continue;
+                    int target = (r + 1 + dy * CHUNK_SIZE) * width + 1 + dx * CHUNK_SIZE;
+                    for (int c = col_from; c <= col_to; c++)
+                        neighbourhood[target + c] = (byte) ((bits >>> c) & 1);
+                }
+            }
+        }
+
+        Chunk chunk = new Chunk(cx, cy);
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            int above = r * width + 1;
+            int here = above + width;
+            int below = here + width;
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int cell;
+                if (neighbourhood[here + c] != 0) {
+                    cell = COVERED_MINE_CELL;
+                } else {
+                    int count = neighbourhood[above + c - 1] + neighbourhood[above + c] + neighbourhood[above + c + 1]
+                            + neighbourhood[here + c - 1] + neighbourhood[here + c + 1]
+                            + neighbourhood[below + c - 1] + neighbourhood[below + c] + neighbourhood[below + c + 1];
+                    cell = COVER_FOR_CELL + count;
+                }
+                chunk.field[r * CHUNK_SIZE + c] = (byte) cell;
+            }
+        }
+        return chunk;
+    }
+
+    private long[] mask(int cx, int cy) {
+        Long key = key(cx, cy);
+        long[] rows = masks.get(key);
+        if (rows == null) {
+            rows = new long[CHUNK_SIZE];
+            mineRows(cx, cy, rows);
+            masks.put(key, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Mines d'un bloc, une ligne de 64 bits par rangée : algorithme de Floyd
+     * sur une graine tirée de (seed, cx, cy), puis le voisinage de l'origine
+     * est dégagé
+     */
+    void mineRows(int cx, int cy, long[] rows) {
+        Arrays.fill(rows, 0);
+        SplittableRandom random = new SplittableRandom(chunkSeed(cx, cy));
+        for (int j = CHUNK_CELLS - mines_per_chunk; j < CHUNK_CELLS; j++) {
+            int position = random.nextInt(j + 1);
+            if ((rows[position >> CHUNK_SHIFT] & (1L << position)) != 0)
+                position = j;
+            rows[position >> CHUNK_SHIFT] |= 1L << position;
+        }
+
+        for (int y = -1; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                if (x >> CHUNK_SHIFT == cx && y >> CHUNK_SHIFT == cy)
+                    rows[y & (CHUNK_SIZE - 1)] &= ~(1L << (x & (CHUNK_SIZE - 1)));
+            }
+        }
+    }
+
+    private long chunkSeed(int cx, int cy) {
+        return mix(mix(seed + cx * 0x9E3779B97F4A7C15L) + cy * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Chunk {
+        final int cx;
+        final int cy;
+        final byte[] field = new byte[CHUNK_CELLS];
+        // Modifié depuis la création ou la dernière écriture
+        boolean dirty;
+
+        Chunk(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+}
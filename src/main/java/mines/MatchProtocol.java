@@ -0,0 +1,84 @@
+package mines;
+
+/**
+ * Protocole binaire entre MatchServer et ses clients : un octet de type puis
+ * les champs en gros-boutiste. Tous les messages sont de taille fixe sauf
+ * STATE, dont l'en-tête donne la longueur.
+ *
+ * Client vers serveur :
+ * JOIN (14 octets) lignes, colonnes, mines, joueurs ; REVEAL et FLAG
+ * (5 octets) case ; SPECTATE (5) numéro de partie à regarder.
+ *
+ * Serveur vers client :
+ * JOINED (6) numéro de partie, indice du joueur ; STARTED (2) joueur qui
+ * commence ; MOVED (14) joueur, bouton, case, valeur découverte (pour FLAG :
+ * 1 si la case porte un drapeau, 0 sinon), score du joueur, joueur suivant,
+ * état ; ABANDONED (1) un adversaire est parti ;
+ * ERROR (2) code ; STATE (5 + longueur) message d'un DeltaEncoder, image
+ * complète au début de la partie ou pour un spectateur, delta après chaque
+ * coup (envoyé avant le MOVED correspondant).
+ */
+public final class MatchProtocol {
+
+    public static final int DEFAULT_PORT = 4455;
+
+    public static final byte JOIN = 0x01;
+    public static final byte REVEAL = 0x02;
+    public static final byte FLAG = 0x03;
+    public static final byte SPECTATE = 0x04;
+
+    public static final byte JOINED = (byte) 0x81;
+    public static final byte STARTED = (byte) 0x82;
+    public static final byte MOVED = (byte) 0x83;
+    public static final byte ABANDONED = (byte) 0x84;
+    public static final byte STATE = (byte) 0x85;
+    public static final byte ERROR = (byte) 0x8F;
+
+    /** États transmis dans MOVED */
+    public static final byte STATE_PLAYING = 0;
+    public static final byte STATE_WON = 1;
+    public static final byte STATE_LOST = 2;
+
+    /** Codes d'erreur */
+    public static final byte ERROR_BAD_REQUEST = 1;
+    public static final byte ERROR_NOT_STARTED = 2;
+    public static final byte ERROR_NOT_YOUR_TURN = 3;
+    public static final byte ERROR_BAD_CELL = 4;
+    /** Case déjà découverte : le tour ne change pas */
+    public static final byte ERROR_NO_EFFECT = 5;
+    /** Aucune partie en cours avec ce numéro */
+    public static final byte ERROR_NO_MATCH = 6;
+
+    /** Plus grand message de taille fixe, dans un sens ou dans l'autre */
+    public static final int MAX_MESSAGE_BYTES = 14;
+
+    private MatchProtocol() {
+    }
+
+    /**
+     * Taille d'un message selon son type (de l'en-tête pour STATE), -1 si
+     * le type est inconnu
+     */
+    public static int messageBytes(byte type) {
+        switch (type) {
+            case JOIN:
+                return 14;
+            case REVEAL:
+            case FLAG:
+            case SPECTATE:
+            case STATE:
+                return 5;
+            case JOINED:
+                return 6;
+            case STARTED:
+            case ERROR:
+                return 2;
+            case MOVED:
+                return 14;
+            case ABANDONED:
+                return 1;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package mines;
+
+import static mines.MatchProtocol.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serveur de parties multijoueur : une seule boucle Selector non bloquante
+ * pour toutes les connexions et toutes les parties (voir MatchProtocol).
+ *
+ * Chaque partie a son MultiplayerGame (tour, propriétaires, scores) ; les
+ * joueurs qui demandent la même configuration et le même nombre de joueurs
+ * sont regroupés, la partie commence quand elle est complète. L'état de la
+ * grille part en deltas (DeltaEncoder) vers les joueurs et les spectateurs.
+ */
+public class MatchServer implements Closeable {
+
+    /** Plus grand plateau accepté pour une partie en ligne */
+    public static final int MAX_MATCH_CELLS = 1 << 20;
+    /**
+     * Octets en attente d'envoi vers une connexion au-delà desquels elle est
+     * fermée : un client ou un spectateur qui ne lit plus ne fait pas grossir
+     * indéfiniment la mémoire du serveur. Un message seul (image complète
+     * d'un grand plateau) passe toujours si rien d'autre n'attend.
+     */
+    public static final int MAX_PENDING_BYTES = 256 * 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+
+    // Parties en attente de joueurs, par configuration puis nombre de joueurs
+    private final Map<BoardConfig, Match[]> waiting = new HashMap<>();
+    // Parties commencées, pour les spectateurs
+    private final Map<Integer, Match> playing = new HashMap<>();
+    private int next_match_id;
+    // Connexions dont la file d'envoi a débordé, fermées en fin de tour de boucle
+    private final List<Connection> stalled = new ArrayList<>();
+
+    private long matches_started;
+    private long matches_finished;
+    private long moves;
+
+    private volatile boolean running = true;
+    private volatile boolean looping;
+
+    public MatchServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Boucle d'événements, jusqu'à close()
+     */
+    public void run() throws IOException {
+        looping = true;
+        try {
+            loop();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void loop() throws IOException {
+        while (running) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid())
+                    continue;
+
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if (key.isReadable())
+                        connection.read();
+                    if (key.isValid() && key.isWritable())
+                        connection.write();
+                } catch (IOException e) {
+                    connection.close();
+                }
+            }
+            // Hors des envois en cours : fermer peut prévenir d'autres connexions
+            while (!stalled.isEmpty())
+                stalled.remove(stalled.size() - 1).close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    public long getMatchesStarted() {
+        return matches_started;
+    }
+
+    public long getMatchesFinished() {
+        return matches_finished;
+    }
+
+    public long getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Arrête la boucle ; les connexions sont fermées par le thread de run()
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (looping)
+            selector.wakeup();
+        else
+            closeAll();
+    }
+
+    private void closeAll() throws IOException {
+        if (!selector.isOpen())
+            return;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection)
+                ((Connection) key.attachment()).close();
+        }
+        server.close();
+        selector.close();
+    }
+
+    private void join(Connection connection, ByteBuffer in) {
+        int rows = in.getInt();
+        int cols = in.getInt();
+        int mines = in.getInt();
+        int players = in.get();
+
+        BoardConfig config;
+        try {
+            config = new BoardConfig(rows, cols, mines);
+        } catch (IllegalArgumentException e) {
+            connection.sendError(ERROR_BAD_REQUEST);
+            return;
+        }
+        if (connection.match != null || players < 2 || players > 4
+                || config.getAllCells() > MAX_MATCH_CELLS) {
+            connection.sendError(ERROR_BAD_REQUEST);
+            return;
+        }
+
+        Match[] open = waiting.computeIfAbsent(config, c -> new Match[5]);
+        Match match = open[players];
+        if (match == null) {
+            match = new Match(next_match_id++, config, players);
+            open[players] = match;
+        }
+
+        int index = match.seat(connection);
+        connection.match = match;
+        connection.player = index;
+        connection.sendJoined(match.id, index);
+
+        if (match.isFull()) {
+            open[players] = null;
+            match.start();
+            matches_started++;
+        }
+    }
+
+    private void spectate(Connection connection, int matchId) {
+        if (connection.match != null || connection.watching != null) {
+            connection.sendError(ERROR_BAD_REQUEST);
+            return;
+        }
+        Match match = playing.get(matchId);
+        if (match == null) {
+            connection.sendError(ERROR_NO_MATCH);
+            return;
+        }
+        match.spectators.add(connection);
+        connection.watching = match;
+        connection.sendState(match.encoder.keyframe());
+    }
+
+    private void move(Connection connection, byte type, int cell) {
+        Match match = connection.match;
+        if (match == null || !match.started) {
+            connection.sendError(ERROR_NOT_STARTED);
+            return;
+        }
+        BoardEngine engine = match.game.getEngine();
+        if (match.game.getCurrentPlayer() != connection.player) {
+            connection.sendError(ERROR_NOT_YOUR_TURN);
+            return;
+        }
+        if (cell < 0 || cell >= engine.getAllCells()) {
+            connection.sendError(ERROR_BAD_CELL);
+            return;
+        }
+
+        boolean changed;
+        if (type == FLAG) {
+            changed = engine.isCovered(cell);
+            if (changed && engine.isMarked(cell))
+                engine.unmark(cell);
+            else if (changed)
+                changed = engine.mark(cell);
+        } else {
+            changed = !engine.isMarked(cell) && match.game.reveal(cell);
+        }
+        if (!changed) {
+            connection.sendError(ERROR_NO_EFFECT);
+            return;
+        }
+
+        moves++;
+        byte state = engine.isWon() ? STATE_WON : engine.isLost() ? STATE_LOST : STATE_PLAYING;
+        match.broadcastMove(connection.player, type, cell, state);
+        if (state != STATE_PLAYING) {
+            match.finish();
+            matches_finished++;
+        }
+    }
+
+    /**
+     * Partie en ligne : joueurs connectés et règles du jeu
+     */
+    private final class Match {
+        final int id;
+        final BoardConfig config;
+        final Connection[] seats;
+        final List<Connection> spectators = new ArrayList<>();
+        int seated;
+        MultiplayerGame game;
+        DeltaEncoder encoder;
+        boolean started;
+
+        Match(int id, BoardConfig config, int players) {
+            this.id = id;
+            this.config = config;
+            this.seats = new Connection[players];
+        }
+
+        int seat(Connection connection) {
+            seats[seated] = connection;
+            return seated++;
+        }
+
+        boolean isFull() {
+            return seated == seats.length;
+        }
+
+        void start() {
+            BoardEngine engine = new BoardEngine(config);
+            engine.newGameDeferred(ThreadLocalRandom.current().nextLong());
+            game = new MultiplayerGame(engine, seats.length);
+            encoder = new DeltaEncoder(game);
+            started = true;
+            playing.put(id, this);
+
+            ByteBuffer keyframe = encoder.keyframe();
+            for (Connection seat : seats) {
+                seat.sendStarted(game.getCurrentPlayer());
+                seat.sendState(keyframe.duplicate());
+            }
+        }
+
+        void broadcastMove(int player, byte button, int cell, byte state) {
+            BoardEngine engine = game.getEngine();
+            // Une case couverte ne dévoile rien : seulement la présence du drapeau
+            int value = engine.isCovered(cell) ? (engine.isMarked(cell) ? 1 : 0) : engine.getCell(cell);
+
+            ByteBuffer delta = encoder.delta();
+            for (Connection seat : seats) {
+                if (seat != null)
+                    seat.sendState(delta.duplicate());
+            }
+            for (Connection spectator : spectators)
+                spectator.sendState(delta.duplicate());
+
+            for (Connection seat : seats) {
+                if (seat != null)
+                    seat.sendMoved(player, button, cell, value, game.getScore(player),
+                            game.getCurrentPlayer(), state);
+            }
+        }
+
+        /**
+         * Fin de partie : les joueurs peuvent en rejoindre une autre
+         */
+        void finish() {
+            for (Connection seat : seats) {
+                if (seat != null)
+                    seat.match = null;
+            }
+            for (Connection spectator : spectators)
+                spectator.watching = null;
+            spectators.clear();
+            playing.remove(id);
+        }
+
+        /**
+         * Un joueur s'est déconnecté
+         */
+        void leave(Connection connection) {
+            if (!started) {
+                // Pas encore commencée : la place est libérée
+                for (int i = 0; i < seated; i++) {
+                    if (seats[i] == connection) {
+                        System.arraycopy(seats, i + 1, seats, i, seated - i - 1);
+                        seats[--seated] = null;
+                        for (int j = i; j < seated; j++) {
+                            seats[j].player = j;
+                            seats[j].sendJoined(id, j);
+                        }
+                        break;
+                    }
+                }
+                if (seated == 0) {
+                    Match[] open = waiting.get(config);
+                    if (open != null && open[seats.length] == this)
+                        open[seats.length] = null;
+                }
+                return;
+            }
+
+            for (int i = 0; i < seats.length; i++) {
+                if (seats[i] == connection)
+                    seats[i] = null;
+                else if (seats[i] != null)
+                    seats[i].sendAbandoned();
+            }
+            for (Connection spectator : spectators)
+                spectator.sendAbandoned();
+            finish();
+            matches_finished++;
+        }
+    }
+
+    /**
+     * Connexion d'un joueur : tampons de lecture et d'écriture
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        ByteBuffer out = ByteBuffer.allocate(256);
+        SelectionKey key;
+        Match match;
+        Match watching;
+        int player;
+        // File d'envoi débordée : plus rien n'est envoyé, fermeture imminente
+        boolean stalled;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                byte type = in.get(in.position());
+                int size = messageBytes(type);
+                if (size < 0 || (type != JOIN && type != REVEAL && type != FLAG && type != SPECTATE)) {
+                    close();
+                    return;
+                }
+                if (in.remaining() < size)
+                    break;
+                in.get();
+                if (type == JOIN)
+                    join(this, in);
+                else if (type == SPECTATE)
+                    spectate(this, in.getInt());
+                else
+                    move(this, type, in.getInt());
+            }
+            in.compact();
+            flush();
+        }
+
+        void write() throws IOException {
+            flush();
+        }
+
+        /**
+         * Envoie ce qui peut l'être ; le reste attend OP_WRITE
+         */
+        private void flush() throws IOException {
+            if (!channel.isOpen() || stalled)
+                return;
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.isValid() && key.interestOps() != ops)
+                key.interestOps(ops);
+        }
+
+        private ByteBuffer reserve(int bytes) {
+            if (!stalled && out.position() > 0 && out.position() + bytes > MAX_PENDING_BYTES) {
+                stalled = true;
+                MatchServer.this.stalled.add(this);
+            }
+            // Les messages d'une connexion qui va être fermée sont jetés
+            if (stalled)
+                out.clear();
+            if (out.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+            return out;
+        }
+
+        void sendJoined(int matchId, int index) {
+            reserve(6).put(JOINED).putInt(matchId).put((byte) index);
+            scheduleFlush();
+        }
+
+        void sendStarted(int current) {
+            reserve(2).put(STARTED).put((byte) current);
+            scheduleFlush();
+        }
+
+        void sendMoved(int mover, byte button, int cell, int value, int score, int next, byte state) {
+            reserve(14).put(MOVED).put((byte) mover).put(button).putInt(cell)
+                    .put((byte) value).putInt(score).put((byte) next).put(state);
+            scheduleFlush();
+        }
+
+        void sendState(ByteBuffer payload) {
+            reserve(5 + payload.remaining()).put(STATE).putInt(payload.remaining()).put(payload);
+            scheduleFlush();
+        }
+
+        void sendAbandoned() {
+            reserve(1).put(ABANDONED);
+            scheduleFlush();
+        }
+
+        void sendError(byte code) {
+            reserve(2).put(ERROR).put(code);
+            scheduleFlush();
+        }
+
+        /**
+         * Les messages pour les autres joueurs partent au prochain tour de boucle
+         */
+        private void scheduleFlush() {
+            if (key != null && key.isValid())
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        void close() {
+            if (key != null)
+                key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Déjà fermée
+            }
+            if (watching != null) {
+                watching.spectators.remove(this);
+                watching = null;
+            }
+            if (match != null) {
+                Match left = match;
+                match = null;
+                left.leave(this);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (MatchServer server = new MatchServer(port)) {
+            System.err.println("Serveur de parties sur le port " + server.getPort());
+            server.run();
+        }
+    }
+}
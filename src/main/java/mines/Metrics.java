@@ -0,0 +1,323 @@
+package mines;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Métriques du moteur et du rendu : compteurs et histogrammes de latence,
+ * exposés en JMX (mines:type=Metrics) et, si demandé, écrits périodiquement
+ * sur la sortie d'erreur.
+ *
+ * Désactivées par défaut : -Dmines.metrics=true les active,
+ * -Dmines.metrics.dump=N écrit un relevé toutes les N secondes. Chaque point
+ * de mesure est gardé par ENABLED, constante que le JIT élimine : désactivé,
+ * il ne coûte ni appel à System.nanoTime() ni écriture.
+ */
+public final class Metrics {
+
+    public static final String PROPERTY = "mines.metrics";
+    public static final String DUMP_PROPERTY = "mines.metrics.dump";
+
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    private static final List<Counter> counters = new ArrayList<>();
+    private static final List<Histogram> histograms = new ArrayList<>();
+
+    /** Grilles générées (placement des mines, y compris les essais du mode sans devinette) */
+    public static final Counter GENERATED = counter("generated");
+    /** Cases découvertes par un clic (reveal réussi) */
+    public static final Counter REVEALS = counter("reveals");
+    public static final Counter MINES_HIT = counter("mines_hit");
+
+    public static final Histogram GENERATION = histogram("generation_ns");
+    /** Durée de reveal(), placement différé et propagation compris */
+    public static final Histogram REVEAL = histogram("reveal_ns");
+    /** Cases ouvertes par propagation depuis une case vide */
+    public static final Histogram FLOOD = histogram("flood_cells");
+    public static final Histogram PAINT = histogram("paint_ns");
+    /** Du traitement d'un clic qui modifie le plateau au dessin suivant */
+    public static final Histogram INPUT_TO_PAINT = histogram("input_to_paint_ns");
+
+    static {
+        if (ENABLED) {
+            registerMBean();
+            long period = Long.getLong(DUMP_PROPERTY, 0);
+            if (period > 0)
+                startDump(period);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(name);
+        counters.add(counter);
+        return counter;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = new Histogram(name);
+        histograms.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Valeurs courantes : chaque compteur, et pour chaque histogramme nombre,
+     * moyenne, p50, p90, p99 et maximum
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Counter counter : counters)
+            values.put(counter.getName(), counter.get());
+        for (Histogram histogram : histograms) {
+            String name = histogram.getName();
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".mean", histogram.getMean());
+            values.put(name + ".p50", histogram.getPercentile(0.50));
+            values.put(name + ".p90", histogram.getPercentile(0.90));
+            values.put(name + ".p99", histogram.getPercentile(0.99));
+            values.put(name + ".max", histogram.getMax());
+        }
+        return values;
+    }
+
+    public static void reset() {
+        for (Counter counter : counters)
+            counter.reset();
+        for (Histogram histogram : histograms)
+            histogram.reset();
+    }
+
+    /**
+     * Relevé sur une ligne, pour le journal
+     */
+    public static String format() {
+        StringBuilder sb = new StringBuilder("Métriques:");
+        for (Map.Entry<String, Long> value : snapshot().entrySet())
+            sb.append(' ').append(value.getKey()).append('=').append(value.getValue());
+        return sb.toString();
+    }
+
+    private static void startDump(long seconds) {
+        ScheduledExecutorService dump = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dump.scheduleAtFixedRate(() -> System.err.println(format()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(),
+                    new ObjectName("mines:type=Metrics"));
+        } catch (JMException e) {
+            System.err.println("Métriques JMX indisponibles: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compteur sans contention entre threads
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        void reset() {
+            value.reset();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Histogramme log-linéaire à la manière de HdrHistogram : 16 intervalles
+     * par puissance de 2 (erreur relative inférieure à 6,25 %), valeurs de 0
+     * à Long.MAX_VALUE dans 960 compteurs, enregistrement sans allocation ni verrou
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        // Exposant au plus 62 pour une valeur positive
+        private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        public void record(long value) {
+            if (value < 0)
+                value = 0;
+            buckets.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value))
+                current = max.get();
+        }
+
+        // Valeurs 0-15 exactes, puis 16 intervalles par puissance de 2
+        static int index(long value) {
+            if (value < SUB_BUCKETS)
+                return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        static long lowerBound(int index) {
+            if (index < SUB_BUCKETS)
+                return index;
+            int exponent = (index >> SUB_BITS) + SUB_BITS - 1;
+            long sub = index & (SUB_BUCKETS - 1);
+            return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public long getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / n;
+        }
+
+        /**
+         * Plus grande valeur de l'intervalle contenant le quantile q (0 à 1),
+         * bornée par le maximum observé ; 0 sans valeur
+         */
+        public long getPercentile(double q) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++)
+                total += buckets.get(i);
+            if (total == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    long high = i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                    return Math.min(high, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++)
+                buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Une valeur du relevé par attribut (lecture seule), opération reset
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Long value = snapshot().get(attribute);
+            if (value == null)
+                throw new AttributeNotFoundException(attribute);
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Long> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute))
+                    list.add(new Attribute(attribute, values.get(attribute)));
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Attribut en lecture seule: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if (!"reset".equals(action))
+                throw new ReflectionException(new NoSuchMethodException(action));
+            reset();
+            return null;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : snapshot().keySet())
+                attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false));
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Remet les métriques à zéro",
+                    null, "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(Metrics.class.getName(), "Métriques du démineur",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null,
+                    new MBeanOperationInfo[] {reset}, null);
+        }
+    }
+}
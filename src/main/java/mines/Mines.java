@@ -10,28 +10,31 @@ import javax.swing.JLabel;
 public class Mines extends JFrame {
 	private static final long serialVersionUID = 4772165125287256837L;
 	
-	private final int WIDTH = 250;
-    private final int HEIGHT = 290;
-
     private JLabel statusbar;
     
     public Mines() {
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(WIDTH, HEIGHT);
-        setLocationRelativeTo(null);
         setTitle("Minesweeper");
 
         statusbar = new JLabel("");
         add(statusbar, BorderLayout.SOUTH);
 
-        add(new Board(statusbar));
+        Board board = new Board(statusbar);
+        add(BoardViewport.scrollPane(board));
+        setJMenuBar(GameMenu.create(this, board));
+        board.setJournal(MoveJournal.fromSystemProperty(board.getEngine().getConfig()));
 
-        setResizable(false);
+        // Fenêtre à la taille du plateau, redimensionnable (barres de défilement au-delà)
+        BoardViewport.fitToScreen(this);
+        setLocationRelativeTo(null);
         setVisible(true);
     }
     
     public static void main(String[] args) {
+        StartupProbe.mark("main");
+        // Tuiles chargées pendant la création de la fenêtre
+        TileSet.preload();
         new Mines();
     }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package mines;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Journal binaire des coups, en ajout seul, pour rejouer une partie à
+ * l'identique (voir GameReplay).
+ *
+ * En-tête : "MJNL", version, lignes, colonnes, mines. Puis des enregistrements :
+ * début de partie (11 octets : type, mode, joueurs, graine), coup (6 octets :
+ * bouton, case, joueur) ou partie chargée (1 octet, coups suivants non
+ * rejouables). Les écritures passent par un tampon ; force() n'est appelé
+ * que tous les SYNC_RECORDS enregistrements, toutes les secondes ou par sync().
+ *
+ * Non thread-safe : à utiliser depuis l'EDT uniquement.
+ */
+public final class MoveJournal implements Closeable {
+
+    public static final int MAGIC = 0x4D4A4E4C;
+    public static final short VERSION = 1;
+
+    /** Propriété système donnant le chemin du journal de l'application */
+    public static final String PROPERTY = "mines.journal";
+
+    /** Mines posées dès newGame(seed) */
+    public static final int MODE_RANDOM = 0;
+    /** Mines posées au premier clic (newGameDeferred) */
+    public static final int MODE_DEFERRED = 1;
+    /** Partie sans devinette, donnée par NoGuessGenerator.deal(engine, graine) */
+    public static final int MODE_NO_GUESS = 2;
+    /**
+     * Donnée par deal() comme MODE_NO_GUESS, mais non vérifiée : le
+     * générateur a dépassé son budget, il faudra peut-être deviner
+     */
+    public static final int MODE_OPENED = 3;
+
+    /** Boutons enregistrés (numéros de MouseEvent) */
+    public static final int BUTTON_LEFT = 1;
+    public static final int BUTTON_RIGHT = 3;
+
+    static final byte RECORD_GAME = 0x10;
+    static final byte RECORD_LOADED = 0x11;
+
+    static final int HEADER_BYTES = 4 + 2 + 3 * 4;
+    static final int GAME_BYTES = 1 + 1 + 1 + 8;
+    static final int MOVE_BYTES = 1 + 4 + 1;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int SYNC_RECORDS = 1024;
+    private static final long SYNC_NANOS = 1_000_000_000L;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final BoardConfig config;
+    private int unsynced;
+    private long last_sync = System.nanoTime();
+
+    private MoveJournal(FileChannel channel, BoardConfig config) {
+        this.channel = channel;
+        this.config = config;
+    }
+
+    /**
+     * Ouvre le journal en ajout, ou le crée. Un enregistrement incomplet en
+     * fin de fichier (arrêt brutal) est tronqué.
+     */
+    public static MoveJournal open(Path path, BoardConfig config) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MoveJournal journal = new MoveJournal(channel, config);
+            if (channel.size() == 0) {
+                journal.writeHeader();
+            } else {
+                MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                BoardConfig existing = readHeader(in, path);
+                if (!existing.equals(config))
+                    throw new IOException("Journal d'une autre configuration (" + existing + "): " + path);
+                long end = completeLength(in);
+                channel.truncate(end);
+                channel.position(end);
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Journal désigné par la propriété mines.journal, fermé à l'arrêt de la
+     * JVM ; null si la propriété est absente ou le fichier inutilisable
+     */
+    public static MoveJournal fromSystemProperty(BoardConfig config) {
+        String path = System.getProperty(PROPERTY);
+        if (path == null)
+            return null;
+        try {
+            MoveJournal journal = open(Paths.get(path), config);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Fermeture du journal impossible: " + e.getMessage());
+                }
+            }, "move-journal-close"));
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Journal désactivé: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(config.getRows());
+        buffer.putInt(config.getCols());
+        buffer.putInt(config.getMines());
+        flush();
+    }
+
+    static BoardConfig readHeader(ByteBuffer in, Path path) throws IOException {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC)
+            throw new IOException("Pas un journal de démineur: " + path);
+        short version = in.getShort();
+        if (version != VERSION)
+            throw new IOException("Version de journal non supportée: " + version);
+        try {
+            return new BoardConfig(in.getInt(), in.getInt(), in.getInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Journal corrompu: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Longueur des enregistrements complets à partir de la position courante
+     * (juste après l'en-tête)
+     */
+    static long completeLength(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            int start = in.position();
+            int size = recordBytes(in.get(start));
+            if (size < 0 || in.remaining() < size)
+                return start;
+            in.position(start + size);
+        }
+        return in.position();
+    }
+
+    /**
+     * Taille d'un enregistrement selon son type, -1 si le type est inconnu
+     */
+    static int recordBytes(byte type) {
+        switch (type) {
+            case RECORD_GAME:
+                return GAME_BYTES;
+            case RECORD_LOADED:
+                return 1;
+            case BUTTON_LEFT:
+            case BUTTON_RIGHT:
+                return MOVE_BYTES;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Début d'une partie : avec la graine et le mode, la grille est reconstruite à l'identique
+     */
+    public void startGame(int mode, long seed, int players) throws IOException {
+        reserve(GAME_BYTES);
+        buffer.put(RECORD_GAME);
+        buffer.put((byte) mode);
+        buffer.put((byte) players);
+        buffer.putLong(seed);
+        recorded();
+    }
+
+    public void recordMove(int button, int cell, int player) throws IOException {
+        if (button != BUTTON_LEFT && button != BUTTON_RIGHT)
+            throw new IllegalArgumentException("Bouton invalide: " + button);
+        reserve(MOVE_BYTES);
+        buffer.put((byte) button);
+        buffer.putInt(cell);
+        buffer.put((byte) player);
+        recorded();
+    }
+
+    /**
+     * Partie chargée depuis un fichier : rien ne peut être rejoué jusqu'à la prochaine partie
+     */
+    public void gameLoaded() throws IOException {
+        reserve(1);
+        buffer.put(RECORD_LOADED);
+        recorded();
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void recorded() throws IOException {
+        if (++unsynced >= SYNC_RECORDS || System.nanoTime() - last_sync >= SYNC_NANOS)
+            sync();
+    }
+
+    /**
+     * Écrit le tampon dans le fichier (sans garantie de durabilité)
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Écrit le tampon et force l'écriture sur disque
+     */
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+        unsynced = 0;
+        last_sync = System.nanoTime();
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package mines;
+
+import static mines.BoardEngine.*;
+
+import java.util.Arrays;
+
+/**
+ * Règles du mode multijoueur sans interface : propriétaire de chaque case,
+ * scores et tour de jeu, autour d'un BoardEngine. Avec moins de deux
+ * joueurs, c'est une partie solo (aucun score).
+ */
+public class MultiplayerGame {
+
+    public static final byte NO_OWNER = -1;
+
+    /** Pénalité pour une mine découverte */
+    public static final int MINE_PENALTY = -10;
+
+    private BoardEngine engine;
+    private final int players;
+    // Propriétaire de chaque case (indice du joueur), NO_OWNER si personne
+    private byte[] owners;
+    private final int[] scores;
+    private int current;
+
+    public MultiplayerGame(BoardEngine engine, int players) {
+        if (players < 0 || players > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Nombre de joueurs invalide: " + players);
+
+        this.players = players;
+        this.scores = new int[players];
+        attach(engine);
+        reset();
+    }
+
+    private void attach(BoardEngine engine) {
+        if (this.engine != null)
+            this.engine.setRevealListener(null);
+        this.engine = engine;
+        if (owners == null || owners.length != engine.getAllCells())
+            owners = new byte[engine.getAllCells()];
+        engine.setRevealListener(this::claimRevealedCell);
+    }
+
+    /**
+     * Remet propriétaires, scores et tour à zéro (la grille est gérée par l'appelant)
+     */
+    public void reset() {
+        Arrays.fill(owners, NO_OWNER);
+        Arrays.fill(scores, 0);
+        current = 0;
+    }
+
+    /**
+     * Reprend une partie sauvegardée ; owners est conservé tel quel
+     */
+    public void restore(BoardEngine engine, byte[] owners, int[] scores, int current) {
+        if (scores.length != players)
+            throw new IllegalArgumentException("Nombre de scores invalide: " + scores.length);
+
+        attach(engine);
+        if (owners != null && owners.length == engine.getAllCells())
+            this.owners = owners;
+        else
+            Arrays.fill(this.owners, NO_OWNER);
+        System.arraycopy(scores, 0, this.scores, 0, players);
+        this.current = players == 0 ? 0 : Math.floorMod(current, players);
+    }
+
+    public boolean isMultiplayer() {
+        return players >= 2;
+    }
+
+    /**
+     * Clic gauche du joueur courant : la case cliquée lui rapporte son chiffre
+     * + 1 (1 si vide), chaque case ouverte par propagation 1 point, une mine
+     * MINE_PENALTY. Le tour passe si la partie continue.
+     */
+    public boolean reveal(int position) {
+        if (!engine.reveal(position))
+            return false;
+
+        if (isMultiplayer()) {
+            if (owners[position] == NO_OWNER) {
+                owners[position] = (byte) current;
+                int value = engine.getCell(position);
+                scores[current] += (value == EMPTY_CELL) ? 1 : value + 1;
+            }
+            if (engine.getCell(position) == MINE_CELL)
+                scores[current] += MINE_PENALTY;
+            if (engine.isInGame())
+                current = (current + 1) % players;
+        }
+        return true;
+    }
+
+    /**
+     * Attribue au joueur courant une case découverte par propagation
+     */
+    private void claimRevealedCell(int cell) {
+        if (isMultiplayer() && owners[cell] == NO_OWNER) {
+            owners[cell] = (byte) current;
+            scores[current]++;
+        }
+    }
+
+    /**
+     * Meilleur score (premier joueur en cas d'égalité)
+     */
+    public int getWinner() {
+        int winner = 0;
+        for (int i = 1; i < players; i++) {
+            if (scores[i] > scores[winner])
+                winner = i;
+        }
+        return winner;
+    }
+
+    public BoardEngine getEngine() {
+        return engine;
+    }
+
+    public int getPlayerCount() {
+        return players;
+    }
+
+    public int getCurrentPlayer() {
+        return current;
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public int[] getScores() {
+        return scores.clone();
+    }
+
+    public int getOwner(int position) {
+        return owners[position];
+    }
+
+    /**
+     * Tableau interne des propriétaires (non copié)
+     */
+    public byte[] getOwners() {
+        return owners;
+    }
+}
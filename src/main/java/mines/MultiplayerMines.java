@@ -1,49 +1,90 @@
 package mines;
 
 import java.awt.BorderLayout;
+import java.awt.Graphics;
 import java.awt.GridLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
- * Classe principale pour le jeu de démineur avec mode multijoueur
+ * Classe principale pour le jeu de démineur avec mode multijoueur.
+ *
+ * Démarrage rapide : la fenêtre de jeu et le plateau ne sont construits
+ * qu'une fois le mode choisi, et -Dmines.mode (solo, noguess, 2, 3 ou 4)
+ * évite l'écran de sélection (bornes). Voir aussi StartupProbe et le
+ * profil Maven cds.
  */
 public class MultiplayerMines extends JFrame {
     private static final long serialVersionUID = 4772165125287256838L;
-    
-    private final int WIDTH = 250;
-    private final int HEIGHT = 290;
+
+    public static final String MODE_PROPERTY = "mines.mode";
     
     private JLabel statusbar;
     
-    public MultiplayerMines() {
-        // Afficher l'écran de sélection du mode
-        showModeSelection();
+    private MultiplayerMines() {
+    }
+
+    /**
+     * Écran de sélection, ou directement le mode imposé
+     */
+    static void start(String mode) {
+        if (mode == null) {
+            showModeSelection();
+            return;
+        }
+        switch (mode) {
+            case "solo":
+                new MultiplayerMines().startSoloGame(false);
+                break;
+            case "noguess":
+                new MultiplayerMines().startSoloGame(true);
+                break;
+            case "2":
+            case "3":
+            case "4":
+                new MultiplayerMines().startMultiplayerGame(Integer.parseInt(mode));
+                break;
+            default:
+                throw new IllegalArgumentException("Mode inconnu: " + mode);
+        }
     }
     
     /**
      * Affiche l'écran de sélection du mode de jeu
      */
-    private void showModeSelection() {
+    private static void showModeSelection() {
         JFrame selectionFrame = new JFrame("Sélection du Mode");
         selectionFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        selectionFrame.setSize(300, 200);
+        selectionFrame.setSize(300, 240);
         selectionFrame.setLocationRelativeTo(null);
         
-        JPanel panel = new JPanel(new GridLayout(4, 1, 10, 10));
+        JPanel panel = new JPanel(new GridLayout(5, 1, 10, 10)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                StartupProbe.painted("sélection");
+            }
+        };
         
         JLabel label = new JLabel("Choisissez le mode de jeu:", JLabel.CENTER);
         panel.add(label);
         
+        JCheckBox noGuessBox = new JCheckBox("Solo sans devinette");
+
         JButton soloButton = new JButton("Mode Solo");
         soloButton.addActionListener(e -> {
             selectionFrame.dispose();
-            startSoloGame();
+            new MultiplayerMines().startSoloGame(noGuessBox.isSelected());
         });
         panel.add(soloButton);
+        panel.add(noGuessBox);
         
         JPanel multiPanel = new JPanel(new GridLayout(1, 2, 5, 5));
         JLabel playersLabel = new JLabel("Joueurs:");
@@ -57,7 +98,7 @@ public class MultiplayerMines extends JFrame {
         multiButton.addActionListener(e -> {
             int numPlayers = Integer.parseInt((String) playersCombo.getSelectedItem());
             selectionFrame.dispose();
-            startMultiplayerGame(numPlayers);
+            new MultiplayerMines().startMultiplayerGame(numPlayers);
         });
         panel.add(multiButton);
         
@@ -68,18 +109,22 @@ public class MultiplayerMines extends JFrame {
     /**
      * Démarre une partie en mode solo
      */
-    private void startSoloGame() {
+    private void startSoloGame(boolean noGuess) {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(WIDTH, HEIGHT);
-        setLocationRelativeTo(null);
         setTitle("Minesweeper - Mode Solo");
         
         statusbar = new JLabel("");
         add(statusbar, BorderLayout.SOUTH);
         
-        add(new Board(statusbar));
+        Board board = new Board(statusbar);
+        if (noGuess)
+            board.setNoGuess(true);
+        add(BoardViewport.scrollPane(board));
+        setJMenuBar(GameMenu.create(this, board));
+        board.setJournal(MoveJournal.fromSystemProperty(board.getEngine().getConfig()));
         
-        setResizable(false);
+        BoardViewport.fitToScreen(this);
+        setLocationRelativeTo(null);
         setVisible(true);
     }
     
@@ -88,20 +133,26 @@ public class MultiplayerMines extends JFrame {
      */
     private void startMultiplayerGame(int numPlayers) {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(WIDTH, HEIGHT + 20); // Un peu plus haut pour les infos
-        setLocationRelativeTo(null);
         setTitle("Minesweeper - Mode Multijoueur (" + numPlayers + " joueurs)");
         
         statusbar = new JLabel("");
         add(statusbar, BorderLayout.SOUTH);
         
-        add(new MultiplayerBoard(statusbar, true, numPlayers));
+        MultiplayerBoard board = new MultiplayerBoard(statusbar, true, numPlayers);
+        add(BoardViewport.scrollPane(board));
+        setJMenuBar(GameMenu.create(this, board));
+        board.setJournal(MoveJournal.fromSystemProperty(board.getEngine().getConfig()));
         
-        setResizable(false);
+        BoardViewport.fitToScreen(this);
+        setLocationRelativeTo(null);
         setVisible(true);
     }
     
     public static void main(String[] args) {
-        new MultiplayerMines();
+        StartupProbe.mark("main");
+        // Tuiles chargées pendant la création de la fenêtre
+        TileSet.preload();
+        String mode = System.getProperty(MODE_PROPERTY);
+        SwingUtilities.invokeLater(() -> start(mode));
     }
 }
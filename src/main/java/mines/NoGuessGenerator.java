@@ -0,0 +1,173 @@
+package mines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Génération de plateaux « sans devinette » : la partie commence par la case
+ * centrale (toujours une ouverture) et chaque grille candidate doit être
+ * résolue entièrement par le Solver sans aucun coup au hasard.
+ *
+ * Les candidats sont générés et vérifiés en parallèle par des threads dédiés ;
+ * le premier qui trouve gagne et les autres sont interrompus. Au-delà du
+ * budget de temps, on se rabat sur une grille ordinaire ouverte au centre.
+ */
+public class NoGuessGenerator {
+
+    /** Budget par défaut, sous l'objectif de 50 ms par partie */
+    public static final long DEFAULT_BUDGET_MILLIS = 40;
+
+    private final BoardConfig config;
+    private final int start_cell;
+    private final int threads;
+    private final long budget_nanos;
+    private final ExecutorService workers;
+
+    // Un moteur et un solveur par thread de travail, réutilisés d'une partie à l'autre
+    private final ThreadLocal<Validator> validators;
+
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public NoGuessGenerator(BoardConfig config) {
+        this(config, Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_MILLIS);
+    }
+
+    public NoGuessGenerator(BoardConfig config, int threads, long budgetMillis) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Nombre de threads invalide: " + threads);
+
+        this.config = config;
+        this.start_cell = startCell(config);
+        this.threads = threads;
+        this.budget_nanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.validators = ThreadLocal.withInitial(() -> new Validator(config));
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "no-guess-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Case de départ : le centre du plateau
+     */
+    public static int startCell(BoardConfig config) {
+        return (config.getRows() / 2) * config.getCols() + config.getCols() / 2;
+    }
+
+    /**
+     * Partie de cette graine telle que le mode sans devinette la sert :
+     * newGame(seed, startCell()) puis la case de départ découverte. Génération,
+     * vérification et GameReplay passent tous par ici : la graine journalisée
+     * (engine.getSeed()) suffit à retrouver la grille.
+     */
+    public static void deal(BoardEngine engine, long seed) {
+        int start = startCell(engine.getConfig());
+        engine.newGame(seed, start);
+        engine.reveal(start);
+    }
+
+    /**
+     * Prépare une nouvelle partie sur engine, case de départ déjà découverte.
+     * Retourne false si le budget a été dépassé ou le générateur arrêté
+     * (grille non vérifiée).
+     */
+    public boolean generate(BoardEngine engine) {
+        if (!config.equals(engine.getConfig()))
+            throw new IllegalArgumentException("Configuration différente: " + engine.getConfig());
+
+        long seed;
+        boolean validated;
+        try {
+            seed = workers.invokeAny(searchTasks(), budget_nanos, TimeUnit.NANOSECONDS);
+            validated = true;
+            generated.incrementAndGet();
+        } catch (TimeoutException | ExecutionException | CancellationException | RejectedExecutionException e) {
+            seed = ThreadLocalRandom.current().nextLong();
+            validated = false;
+            fallbacks.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            seed = ThreadLocalRandom.current().nextLong();
+            validated = false;
+            fallbacks.incrementAndGet();
+        }
+
+        deal(engine, seed);
+        return validated;
+    }
+
+    private List<Callable<Long>> searchTasks() {
+        SplittableRandom seeds = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        List<Callable<Long>> tasks = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = seeds.split();
+            tasks.add(() -> search(random));
+        }
+        return tasks;
+    }
+
+    /**
+     * Essaie des graines jusqu'à en trouver une valide ou être interrompu
+     */
+    private long search(SplittableRandom random) throws InterruptedException {
+        Validator validator = validators.get();
+        while (!Thread.currentThread().isInterrupted()) {
+            long seed = random.nextLong();
+            candidates.incrementAndGet();
+            if (validator.isNoGuess(seed))
+                return seed;
+        }
+        throw new InterruptedException();
+    }
+
+    public int getStartCell() {
+        return start_cell;
+    }
+
+    /** Grilles candidates essayées depuis la création */
+    public long getCandidateCount() {
+        return candidates.get();
+    }
+
+    public long getGeneratedCount() {
+        return generated.get();
+    }
+
+    /** Parties où le budget a été dépassé */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static final class Validator {
+        private final BoardEngine engine;
+        private final Solver solver;
+
+        Validator(BoardConfig config) {
+            engine = new BoardEngine(config);
+            solver = new Solver(engine);
+        }
+
+        boolean isNoGuess(long seed) {
+            deal(engine, seed);
+            return solver.solve(false);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package mines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Probabilité exacte de mine pour chaque case d'une position, comme le verrait
+ * un joueur (chiffres découverts, drapeaux considérés comme des mines).
+ *
+ * La frontière est découpée en composantes indépendantes ; chacune est
+ * énumérée sur un ForkJoinPool, les premiers niveaux de l'arbre de recherche
+ * étant eux-mêmes répartis en sous-tâches. Les résultats, classés par nombre
+ * de mines, sont ensuite combinés avec le nombre total de mines restantes :
+ * une configuration de la frontière à m mines pèse C(intérieur, restantes - m).
+ *
+ * Si le thread appelant est interrompu, les sous-tâches s'arrêtent au plus
+ * vite et compute() lève CancellationException.
+ */
+public class ProbabilityCalculator {
+
+    /** Au-delà, une composante est traitée comme des cases intérieures */
+    private static final int MAX_COMPONENT = 48;
+    /** En dessous de ce nombre de cases restantes, l'énumération reste séquentielle */
+    private static final int SEQUENTIAL_CELLS = 12;
+    /** Nœuds de l'énumération entre deux tests d'annulation (puissance de 2) */
+    private static final int CANCEL_CHECK = 1 << 12;
+
+    private final ForkJoinPool pool;
+    private final int split_depth;
+
+    public ProbabilityCalculator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ProbabilityCalculator(ForkJoinPool pool) {
+        this.pool = pool;
+        // Environ 8 tâches par cœur et par composante
+        this.split_depth = 32 - Integer.numberOfLeadingZeros(pool.getParallelism() * 8 - 1);
+    }
+
+    /**
+     * Probabilité de mine par case : 0 pour une case découverte, 1 pour un drapeau
+     *
+     * @throws CancellationException si le thread est interrompu pendant le
+     *         calcul (indicateur d'interruption conservé)
+     */
+    public double[] compute(BoardEngine engine) {
+        int all_cells = engine.getAllCells();
+        double[] probability = new double[all_cells];
+
+        int remaining = engine.getMinesLeft();
+        int[] comp_index = new int[all_cells];
+        Arrays.fill(comp_index, -1);
+
+        // 1. Frontière, puis composantes connexes (parcours en largeur)
+        List<Component> components = new ArrayList<>();
+        List<int[]> oversized = new ArrayList<>();
+        int interior = 0;
+        int[] neighbours = new int[8];
+
+        for (int i = 0; i < all_cells; i++) {
+            if (!engine.isCovered(i)) {
+                probability[i] = 0.0;
+            } else if (engine.isMarked(i)) {
+                probability[i] = 1.0;
+            } else if (!hasRevealedNeighbour(engine, i, neighbours)) {
+                interior++;
+            } else if (comp_index[i] < 0) {
+                int[] cells = collectComponent(engine, i, comp_index);
+                if (cells.length <= MAX_COMPONENT) {
+                    components.add(new Component(engine, cells, comp_index));
+                } else {
+                    oversized.add(cells);
+                    interior += cells.length;
+                }
+            }
+        }
+
+        // 2. Énumération parallèle de toutes les composantes
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ComponentTask> tasks = new ArrayList<>();
+        for (Component component : components)
+            tasks.add(new ComponentTask(component, remaining, cancelled));
+        ForkJoinTask<Void> enumeration = pool.submit(new RecursiveTask<Void>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected Void compute() {
+                ForkJoinTask.invokeAll(tasks);
+                return null;
+            }
+        });
+        try {
+            enumeration.get();
+        } catch (InterruptedException e) {
+            // Les tâches du pool ne voient pas l'interruption de l'appelant
+            cancelled.set(true);
+            enumeration.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Calcul des probabilités interrompu");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+
+        // 3. Combinaison avec le nombre global de mines
+        double[][] distributions = new double[components.size()][];
+        for (int c = 0; c < components.size(); c++) {
+            Histogram histogram = tasks.get(c).getRawResult();
+            histogram.normalize();
+            distributions[c] = histogram.solutions;
+        }
+
+        double[] weights = interiorWeights(interior, remaining);
+        double[][] prefix = new double[components.size() + 1][];
+        double[][] suffix = new double[components.size() + 1][];
+        prefix[0] = new double[] {1.0};
+        suffix[components.size()] = new double[] {1.0};
+        for (int c = 0; c < components.size(); c++)
+            prefix[c + 1] = convolve(prefix[c], distributions[c], remaining);
+        for (int c = components.size() - 1; c >= 0; c--)
+            suffix[c] = convolve(distributions[c], suffix[c + 1], remaining);
+
+        double[] all = prefix[components.size()];
+        double total = 0;
+        double interior_mines = 0;
+        for (int m = 0; m < all.length; m++) {
+            double weight = all[m] * weight(weights, remaining - m);
+            total += weight;
+            interior_mines += weight * (remaining - m);
+        }
+
+        if (total == 0) {
+            // Position incohérente (drapeaux faux) : répartition uniforme
+            double uniform = Math.min(1.0, (double) remaining / Math.max(1, countUnknown(engine)));
+            for (int i = 0; i < all_cells; i++) {
+                if (engine.isCovered(i) && !engine.isMarked(i))
+                    probability[i] = uniform;
+            }
+            return probability;
+        }
+
+        for (int c = 0; c < components.size(); c++) {
+            Component component = components.get(c);
+            Histogram histogram = tasks.get(c).getRawResult();
+            double[] others = convolve(prefix[c], suffix[c + 1], remaining);
+
+            // Poids de « k mines dans cette composante » compte tenu du reste du plateau
+            double[] factor = new double[component.size + 1];
+            for (int k = 0; k <= component.size; k++) {
+                for (int m = 0; m < others.length; m++)
+                    factor[k] += others[m] * weight(weights, remaining - k - m);
+            }
+
+            for (int i = 0; i < component.size; i++) {
+                double p = 0;
+                for (int k = 0; k <= component.size; k++)
+                    p += histogram.hits[i * (component.size + 1) + k] * factor[k];
+                probability[component.cells[i]] = p / total;
+            }
+        }
+
+        double interior_probability = interior == 0 ? 0.0 : interior_mines / total / interior;
+        for (int i = 0; i < all_cells; i++) {
+            if (engine.isCovered(i) && !engine.isMarked(i)
+                    && !hasRevealedNeighbour(engine, i, neighbours))
+                probability[i] = interior_probability;
+        }
+        for (int[] cells : oversized) {
+            for (int cell : cells)
+                probability[cell] = interior_probability;
+        }
+        return probability;
+    }
+
+    private static int countUnknown(BoardEngine engine) {
+        int count = 0;
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.isCovered(i) && !engine.isMarked(i))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * w[n] proportionnel à C(intérieur, n), normalisé par son maximum (en log)
+     */
+    private static double[] interiorWeights(int interior, int remaining) {
+        int max = Math.min(interior, remaining);
+        if (max < 0)
+            return new double[0];
+
+        double[] log_factorial = new double[interior + 1];
+        for (int i = 2; i <= interior; i++)
+            log_factorial[i] = log_factorial[i - 1] + Math.log(i);
+
+        double[] weights = new double[max + 1];
+        double best = Double.NEGATIVE_INFINITY;
+        for (int n = 0; n <= max; n++) {
+            weights[n] = log_factorial[interior] - log_factorial[n] - log_factorial[interior - n];
+            best = Math.max(best, weights[n]);
+        }
+        for (int n = 0; n <= max; n++)
+            weights[n] = Math.exp(weights[n] - best);
+        return weights;
+    }
+
+    private static double weight(double[] weights, int n) {
+        return n >= 0 && n < weights.length ? weights[n] : 0.0;
+    }
+
+    private static double[] convolve(double[] a, double[] b, int limit) {
+        int length = Math.min(a.length + b.length - 1, limit + 1);
+        double[] result = new double[Math.max(length, 1)];
+        for (int i = 0; i < a.length && i < result.length; i++) {
+            if (a[i] == 0)
+                continue;
+            for (int j = 0; j < b.length && i + j < result.length; j++)
+                result[i + j] += a[i] * b[j];
+        }
+        return result;
+    }
+
+    private static boolean hasRevealedNeighbour(BoardEngine engine, int cell, int[] neighbours) {
+        int n = neighbours(engine, cell, neighbours);
+        for (int k = 0; k < n; k++) {
+            if (!engine.isCovered(neighbours[k]))
+                return true;
+        }
+        return false;
+    }
+
+    static int neighbours(BoardEngine engine, int cell, int[] out) {
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int n = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            if (r < 0 || r >= rows)
+                continue;
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (c < 0 || c >= cols || (r == row && c == col))
+                    continue;
+                out[n++] = r * cols + c;
+            }
+        }
+        return n;
+    }
+
+    private static boolean isUnknown(BoardEngine engine, int cell) {
+        return engine.isCovered(cell) && !engine.isMarked(cell);
+    }
+
+    /**
+     * Inconnues reliées à start par des chiffres communs ; comp_index reçoit
+     * la position de chaque case dans la composante
+     */
+    private static int[] collectComponent(BoardEngine engine, int start, int[] comp_index) {
+        int[] cells = new int[16];
+        int size = 0;
+        int[] around = new int[8];
+        int[] second = new int[8];
+
+        comp_index[start] = size;
+        cells[size++] = start;
+
+        for (int head = 0; head < size; head++) {
+            int n = neighbours(engine, cells[head], around);
+            for (int k = 0; k < n; k++) {
+                int number = around[k];
+                if (engine.isCovered(number))
+                    continue;
+                int m = neighbours(engine, number, second);
+                for (int j = 0; j < m; j++) {
+                    int other = second[j];
+                    if (!isUnknown(engine, other) || comp_index[other] >= 0)
+                        continue;
+                    if (size == cells.length)
+                        cells = Arrays.copyOf(cells, size * 2);
+                    comp_index[other] = size;
+                    cells[size++] = other;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, size);
+    }
+
+    /**
+     * Structure immuable d'une composante : cases et contraintes qui les touchent
+     */
+    private static final class Component {
+        final int size;
+        final int[] cells;
+        final int[] cell_cons;
+        final int[] cell_cons_count;
+        final int[] cons_need;
+        final int[] cons_size;
+
+        Component(BoardEngine engine, int[] cells, int[] comp_index) {
+            this.size = cells.length;
+            this.cells = cells;
+            this.cell_cons = new int[size * 8];
+            this.cell_cons_count = new int[size];
+
+            List<Integer> numbers = new ArrayList<>();
+            int[] around = new int[8];
+            int[] second = new int[8];
+            for (int cell : cells) {
+                int n = neighbours(engine, cell, around);
+                for (int k = 0; k < n; k++) {
+                    if (!engine.isCovered(around[k]) && !numbers.contains(around[k]))
+                        numbers.add(around[k]);
+                }
+            }
+
+            this.cons_need = new int[numbers.size()];
+            this.cons_size = new int[numbers.size()];
+            for (int c = 0; c < numbers.size(); c++) {
+                int number = numbers.get(c);
+                int need = engine.getCell(number);
+                int m = neighbours(engine, number, second);
+                for (int j = 0; j < m; j++) {
+                    int other = second[j];
+                    if (engine.isMarked(other)) {
+                        need--;
+                    } else if (engine.isCovered(other)) {
+                        int index = comp_index[other];
+                        cell_cons[index * 8 + cell_cons_count[index]++] = c;
+                        cons_size[c]++;
+                    }
+                }
+                cons_need[c] = need;
+            }
+        }
+    }
+
+    /**
+     * Nombre de solutions par nombre de mines, et pour chaque case le nombre
+     * de solutions où elle est minée (même indexation)
+     */
+    private static final class Histogram {
+        final double[] solutions;
+        final double[] hits;
+
+        Histogram(int size) {
+            solutions = new double[size + 1];
+            hits = new double[size * (size + 1)];
+        }
+
+        /**
+         * Ramène le total à 1 : l'échelle de chaque composante s'annule dans
+         * le résultat, et le produit des composantes ne déborde plus
+         */
+        void normalize() {
+            double total = 0;
+            for (double count : solutions)
+                total += count;
+            if (total == 0)
+                return;
+            for (int i = 0; i < solutions.length; i++)
+                solutions[i] /= total;
+            for (int i = 0; i < hits.length; i++)
+                hits[i] /= total;
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < solutions.length; i++)
+                solutions[i] += other.solutions[i];
+            for (int i = 0; i < hits.length; i++)
+                hits[i] += other.hits[i];
+        }
+    }
+
+    /**
+     * Énumère le sous-arbre où les depth premières cases sont déjà fixées
+     */
+    private final class ComponentTask extends RecursiveTask<Histogram> {
+        private static final long serialVersionUID = 1L;
+
+        private final Component component;
+        private final int mines_available;
+        private final AtomicBoolean cancelled;
+        private final int depth;
+        private final byte[] assignment;
+        private final int[] placed;
+        private final int[] remaining;
+        private int placed_total;
+        private int nodes;
+        private Histogram histogram;
+
+        ComponentTask(Component component, int mines_available, AtomicBoolean cancelled) {
+            this(component, mines_available, cancelled, 0, new byte[component.size],
+                    new int[component.cons_need.length], component.cons_size.clone(), 0);
+        }
+
+        private ComponentTask(Component component, int mines_available, AtomicBoolean cancelled, int depth,
+                byte[] assignment, int[] placed, int[] remaining, int placed_total) {
+            this.component = component;
+            this.mines_available = mines_available;
+            this.cancelled = cancelled;
+            this.depth = depth;
+            this.assignment = assignment;
+            this.placed = placed;
+            this.remaining = remaining;
+            this.placed_total = placed_total;
+        }
+
+        @Override
+        protected Histogram compute() {
+            if (depth < split_depth && component.size - depth > SEQUENTIAL_CELLS) {
+                List<ComponentTask> children = new ArrayList<>(2);
+                for (byte value = 0; value <= 1; value++) {
+                    ComponentTask child = new ComponentTask(component, mines_available, cancelled, depth + 1,
+                            assignment.clone(), placed.clone(), remaining.clone(), placed_total);
+                    if (child.assign(depth, value))
+                        children.add(child);
+                }
+                Histogram merged = new Histogram(component.size);
+                for (ComponentTask child : ForkJoinTask.invokeAll(children))
+                    merged.add(child.join());
+                return merged;
+            }
+
+            histogram = new Histogram(component.size);
+            enumerate(depth);
+            return histogram;
+        }
+
+        private void enumerate(int index) {
+            if ((++nodes & (CANCEL_CHECK - 1)) == 0 && cancelled.get())
+                throw new CancellationException();
+            if (index == component.size) {
+                histogram.solutions[placed_total]++;
+                int stride = component.size + 1;
+                for (int i = 0; i < component.size; i++) {
+                    if (assignment[i] == 1)
+                        histogram.hits[i * stride + placed_total]++;
+                }
+                return;
+            }
+
+            for (byte value = 0; value <= 1; value++) {
+                if (value == 1 && placed_total == mines_available)
+                    break;
+                if (assign(index, value))
+                    enumerate(index + 1);
+                unassign(index, value);
+            }
+        }
+
+        private boolean assign(int index, byte value) {
+            assignment[index] = value;
+            placed_total += value;
+            boolean feasible = placed_total <= mines_available;
+            int base = index * 8;
+            for (int k = 0; k < component.cell_cons_count[index]; k++) {
+                int constraint = component.cell_cons[base + k];
+                remaining[constraint]--;
+                placed[constraint] += value;
+                if (placed[constraint] > component.cons_need[constraint]
+                        || placed[constraint] + remaining[constraint] < component.cons_need[constraint])
+                    feasible = false;
+            }
+            return feasible;
+        }
+
+        private void unassign(int index, byte value) {
+            assignment[index] = 0;
+            placed_total -= value;
+            int base = index * 8;
+            for (int k = 0; k < component.cell_cons_count[index]; k++) {
+                int constraint = component.cell_cons[base + k];
+                remaining[constraint]++;
+                placed[constraint] -= value;
+            }
+        }
+    }
+}
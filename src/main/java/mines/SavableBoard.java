@@ -0,0 +1,14 @@
+package mines;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Panneau de jeu qui sait écrire et relire sa partie (voir GameFile)
+ */
+public interface SavableBoard {
+
+    void save(Path path) throws IOException;
+
+    void load(Path path) throws IOException;
+}
@@ -0,0 +1,215 @@
+package mines;
+
+import static mines.BoardEngine.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Mode multijoueur simultané : pas de tour, tous les joueurs cliquent en
+ * même temps sur la même grille, depuis n'importe quel thread.
+ *
+ * Chaque case tient dans un octet d'état (COVERED, FLAGGED ou l'indice du
+ * joueur qui l'a découverte) modifié uniquement par compareAndSet : une case
+ * est gagnée par le premier CAS réussi, jamais deux fois, y compris quand
+ * deux propagations se croisent. Les chiffres sont calculés une fois pour
+ * toutes à la création et ne changent plus.
+ *
+ * Scores comme dans MultiplayerGame ; une mine coûte MINE_PENALTY mais ne
+ * termine pas la partie, qui est gagnée quand toutes les cases sans mine
+ * sont découvertes.
+ */
+public final class SimultaneousGame {
+
+    public static final byte COVERED = -1;
+    public static final byte FLAGGED = -2;
+
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    // Un score par ligne de cache (16 int) : chaque joueur écrit surtout le sien
+    private static final int SCORE_STRIDE = 16;
+
+    // Pile de propagation de chaque thread
+    private static final ThreadLocal<int[]> STACK = ThreadLocal.withInitial(() -> new int[64]);
+
+    private final BoardConfig config;
+    private final int rows;
+    private final int cols;
+    private final int players;
+    // Chiffre ou MINE_CELL de chaque case, en lecture seule
+    private final byte[] values;
+    // COVERED, FLAGGED ou propriétaire, modifié par CAS uniquement
+    private final byte[] states;
+    private final AtomicIntegerArray scores;
+    private final AtomicInteger covered_safe;
+    private final AtomicInteger flags_left;
+
+    public SimultaneousGame(BoardConfig config, int players, long seed) {
+        if (players < 1 || players > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Nombre de joueurs invalide: " + players);
+
+        this.config = config;
+        this.rows = config.getRows();
+        this.cols = config.getCols();
+        this.players = players;
+
+        BoardEngine engine = new BoardEngine(config);
+        engine.newGame(seed);
+        values = new byte[config.getAllCells()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (byte) (engine.getCell(i) - COVER_FOR_CELL);
+
+        states = new byte[values.length];
+        Arrays.fill(states, COVERED);
+        scores = new AtomicIntegerArray(players * SCORE_STRIDE);
+        covered_safe = new AtomicInteger(values.length - config.getMines());
+        flags_left = new AtomicInteger(config.getMines());
+    }
+
+    /**
+     * Clic gauche du joueur : retourne le nombre de cases gagnées (0 si la
+     * case était déjà découverte ou marquée, ou la partie gagnée). La case
+     * cliquée rapporte son chiffre + 1 (1 si vide), chaque case ouverte par
+     * propagation 1 point.
+     */
+    public int reveal(int player, int position) {
+        if (isWon() || !STATES.compareAndSet(states, position, COVERED, (byte) player))
+            return 0;
+
+        int value = values[position];
+        if (value == MINE_CELL) {
+            scores.addAndGet(player * SCORE_STRIDE, MultiplayerGame.MINE_PENALTY);
+            return 1;
+        }
+
+        int claimed = 1;
+        if (value == EMPTY_CELL)
+            claimed += flood(player, position);
+
+        // Compteurs partagés mis à jour une fois par clic, pas par case
+        int score = (value == EMPTY_CELL) ? claimed : value + claimed;
+        scores.addAndGet(player * SCORE_STRIDE, score);
+        covered_safe.addAndGet(-claimed);
+        return claimed;
+    }
+
+    /**
+     * Propagation depuis une case vide déjà gagnée par le joueur : chaque
+     * voisine est prise par CAS, celles déjà prises par un autre sont laissées
+     */
+    private int flood(int player, int start) {
+        int[] stack = STACK.get();
+        int size = 0;
+        int claimed = 0;
+        stack[size++] = start;
+
+        while (size > 0) {
+            int current = stack[--size];
+            int row = current / cols;
+            int col = current - row * cols;
+
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                    int cell = r * cols + c;
+                    if (!claim(player, cell))
+                        continue;
+                    claimed++;
+                    if (values[cell] == EMPTY_CELL) {
+                        if (size == stack.length) {
+                            stack = Arrays.copyOf(stack, size * 2);
+                            STACK.set(stack);
+                        }
+                        stack[size++] = cell;
+                    }
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Prend une case couverte ; comme BoardEngine, la propagation retire un
+     * drapeau posé sur son chemin (rendu au compteur)
+     */
+    private boolean claim(int player, int cell) {
+        if (STATES.compareAndSet(states, cell, COVERED, (byte) player))
+            return true;
+        if (STATES.compareAndSet(states, cell, FLAGGED, (byte) player)) {
+            flags_left.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Clic droit : pose ou retire un drapeau sur une case couverte.
+     * Retourne false si la case est découverte ou s'il ne reste plus de drapeaux.
+     */
+    public boolean toggleFlag(int position) {
+        if (STATES.compareAndSet(states, position, FLAGGED, COVERED)) {
+            flags_left.incrementAndGet();
+            return true;
+        }
+        if (flags_left.getAndDecrement() <= 0) {
+            flags_left.incrementAndGet();
+            return false;
+        }
+        if (STATES.compareAndSet(states, position, COVERED, FLAGGED))
+            return true;
+        flags_left.incrementAndGet();
+        return false;
+    }
+
+    public boolean isWon() {
+        return covered_safe.get() == 0;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int getPlayerCount() {
+        return players;
+    }
+
+    public int getAllCells() {
+        return values.length;
+    }
+
+    public int getCoveredSafeCells() {
+        return covered_safe.get();
+    }
+
+    public int getFlagsLeft() {
+        return flags_left.get();
+    }
+
+    public int getScore(int player) {
+        return scores.get(player * SCORE_STRIDE);
+    }
+
+    /**
+     * COVERED, FLAGGED ou indice du joueur qui a découvert la case
+     */
+    public int getState(int position) {
+        return (byte) STATES.getAcquire(states, position);
+    }
+
+    /**
+     * Propriétaire de la case, MultiplayerGame.NO_OWNER si elle est couverte
+     */
+    public int getOwner(int position) {
+        int state = getState(position);
+        return state >= 0 ? state : MultiplayerGame.NO_OWNER;
+    }
+
+    /**
+     * Chiffre de la case ou MINE_CELL, qu'elle soit découverte ou non
+     */
+    public int getValue(int position) {
+        return values[position];
+    }
+}
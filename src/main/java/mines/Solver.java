@@ -0,0 +1,730 @@
+package mines;
+
+import java.util.Arrays;
+
+/**
+ * Solveur par contraintes, lit uniquement ce qu'un joueur voit : les chiffres
+ * découverts d'un BoardEngine. Les drapeaux du joueur sont ignorés (un drapeau
+ * peut être faux) : une case marquée reste inconnue, elle n'est simplement
+ * jamais proposée.
+ *
+ * Trois niveaux de déduction, du moins cher au plus cher :
+ * 1. case isolée (chiffre satisfait ou toutes les voisines sont des mines)
+ * 2. paires de chiffres voisins (inclusion / différence d'ensembles)
+ * 3. énumération exacte de chaque composante connexe de la frontière
+ *
+ * Tous les tableaux de travail sont alloués une fois par solveur, et gardés
+ * quand setEngine() passe à un plateau de même taille. Un thread interrompu
+ * abandonne la résolution (voir NoGuessGenerator).
+ */
+public class Solver {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    /** Au-delà, une composante n'est pas énumérée (coût exponentiel) */
+    private static final int MAX_COMPONENT = 48;
+    /** Nœuds de l'énumération entre deux tests d'interruption (puissance de 2) */
+    private static final int INTERRUPT_CHECK = 1 << 12;
+
+    /**
+     * Coup proposé : case, probabilité qu'elle contienne une mine et
+     * certitude (case prouvée sûre par déduction)
+     */
+    public static final class Move {
+        private final int position;
+        private final double mineProbability;
+        private final boolean safe;
+
+        public Move(int position, double mineProbability, boolean safe) {
+            this.position = position;
+            this.mineProbability = mineProbability;
+            this.safe = safe;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public double getMineProbability() {
+            return mineProbability;
+        }
+
+        public boolean isSafe() {
+            return safe;
+        }
+    }
+
+    private BoardEngine engine;
+    private int rows;
+    private int cols;
+    private int all_cells;
+
+    // Connaissance du solveur sur les cases couvertes
+    private byte[] known;
+    // Cases découvertes déjà prises en compte
+    private boolean[] seen;
+    private double[] probability;
+
+    // Chiffres à réexaminer
+    private int[] work = new int[64];
+    private int work_size;
+    private boolean[] queued;
+
+    // Cases sûres pas encore jouées
+    private int[] safe = new int[64];
+    private int safe_size;
+
+    private final int[] neighbours = new int[8];
+    private final int[] unknowns_a = new int[8];
+    private final int[] unknowns_b = new int[8];
+    private final int[] only_a = new int[8];
+    private final int[] only_b = new int[8];
+
+    // Énumération d'une composante de la frontière
+    private int[] comp_index;
+    private int[] cons_stamp;
+    private int stamp;
+    private int[] comp_cells = new int[MAX_COMPONENT];
+    private int comp_size;
+    private int[] frontier = new int[64];
+    private final int[] cell_cons = new int[MAX_COMPONENT * 8];
+    private final int[] cell_cons_count = new int[MAX_COMPONENT];
+    private final int[] cons_need = new int[MAX_COMPONENT * 8];
+    private final int[] cons_placed = new int[MAX_COMPONENT * 8];
+    private final int[] cons_remaining = new int[MAX_COMPONENT * 8];
+    private int cons_count;
+    private final byte[] assignment = new byte[MAX_COMPONENT];
+    private final double[] hits = new double[MAX_COMPONENT];
+    private double solutions;
+    private double solution_mines;
+    private int placed_total;
+    private int mines_available;
+    private int nodes;
+    private boolean interrupted;
+
+    private int known_mines;
+    private int guesses;
+
+    public Solver(BoardEngine engine) {
+        setEngine(engine);
+    }
+
+    /**
+     * Travaille désormais sur engine (une autre partie, par exemple) ; les
+     * tableaux par case sont réutilisés si le nombre de cases est le même
+     */
+    public void setEngine(BoardEngine engine) {
+        this.engine = engine;
+        this.rows = engine.getRows();
+        this.cols = engine.getCols();
+        if (known != null && known.length == rows * cols)
+            return;
+
+        this.all_cells = rows * cols;
+        this.known = new byte[all_cells];
+        this.seen = new boolean[all_cells];
+        this.queued = new boolean[all_cells];
+        this.comp_index = new int[all_cells];
+        this.cons_stamp = new int[all_cells];
+        this.probability = null;
+        Arrays.fill(comp_index, -1);
+    }
+
+    public BoardEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Joue la partie du moteur jusqu'au bout. Sans droit de deviner, s'arrête
+     * dès qu'aucun coup sûr n'existe. Retourne vrai si la partie est gagnée,
+     * faux aussi si le thread est interrompu (indicateur conservé).
+     */
+    public boolean solve(boolean allowGuess) {
+        guesses = 0;
+        rescan();
+
+        while (engine.isInGame()) {
+            if (Thread.currentThread().isInterrupted())
+                return false;
+            propagate();
+            if (playSafeCells())
+                continue;
+            if (enumerateFrontier())
+                continue;
+            if (interrupted || !allowGuess)
+                return false;
+
+            int guess = bestGuess();
+            if (guess < 0)
+                return false;
+            guesses++;
+            play(guess);
+        }
+        return engine.isWon();
+    }
+
+    /**
+     * Meilleur coup pour la position actuelle : une case sûre si la déduction
+     * en trouve une, sinon la case la moins probablement minée (null si aucune
+     * case inconnue). Avant le premier clic d'une partie différée, toute case
+     * est sûre : le centre est proposé.
+     */
+    public Move hint() {
+        if (engine.isDeferred())
+            return firstClick();
+        rescan();
+        propagate();
+        int position = nextSafeCell();
+        if (position < 0 && enumerateFrontier()) {
+            propagate();
+            position = nextSafeCell();
+        }
+        if (position >= 0)
+            return new Move(position, 0.0, true);
+
+        position = bestGuess();
+        if (position < 0)
+            return null;
+        return new Move(position, probability == null ? 1.0 : probability[position], false);
+    }
+
+    /**
+     * Premier clic d'une partie différée : aucune mine n'est posée sur la case
+     * cliquée ni ses voisines, le centre (ou à défaut une case sans drapeau)
+     * ouvre donc une zone sans risque
+     */
+    private Move firstClick() {
+        int center = (rows / 2) * cols + cols / 2;
+        if (!engine.isMarked(center))
+            return new Move(center, 0.0, true);
+        for (int i = 0; i < all_cells; i++) {
+            if (!engine.isMarked(i))
+                return new Move(i, 0.0, true);
+        }
+        return null;
+    }
+
+    /**
+     * Probabilité de mine de chaque case couverte, calculée au dernier blocage
+     * (null tant qu'aucune énumération n'a eu lieu)
+     */
+    public double[] getProbabilities() {
+        return probability;
+    }
+
+    public int getGuessCount() {
+        return guesses;
+    }
+
+    /**
+     * Oublie toute déduction et reprend les chiffres visibles du plateau
+     */
+    private void rescan() {
+        Arrays.fill(known, UNKNOWN);
+        Arrays.fill(seen, false);
+        Arrays.fill(queued, false);
+        work_size = 0;
+        safe_size = 0;
+        known_mines = 0;
+
+        for (int i = 0; i < all_cells; i++) {
+            if (!engine.isCovered(i)) {
+                seen[i] = true;
+                if (engine.getCell(i) > 0)
+                    enqueue(i);
+            }
+        }
+    }
+
+    private void play(int position) {
+        engine.clearChanges();
+        engine.reveal(position);
+        absorbChanges();
+    }
+
+    private boolean playSafeCells() {
+        boolean played = false;
+        while (safe_size > 0 && engine.isInGame()) {
+            int position = safe[--safe_size];
+            if (engine.isCovered(position) && !engine.isMarked(position)) {
+                play(position);
+                played = true;
+            }
+        }
+        return played;
+    }
+
+    private int nextSafeCell() {
+        while (safe_size > 0) {
+            int position = safe[--safe_size];
+            if (engine.isCovered(position) && !engine.isMarked(position))
+                return position;
+        }
+        return -1;
+    }
+
+    /**
+     * Prend en compte les cases découvertes par le dernier coup (rectangle modifié)
+     */
+    private void absorbChanges() {
+        if (!engine.hasChanges())
+            return;
+
+        for (int r = engine.getChangedMinRow(); r <= engine.getChangedMaxRow(); r++) {
+            for (int c = engine.getChangedMinCol(); c <= engine.getChangedMaxCol(); c++) {
+                int cell = r * cols + c;
+                if (seen[cell] || engine.isCovered(cell))
+                    continue;
+                seen[cell] = true;
+                if (engine.getCell(cell) > 0 && engine.getCell(cell) < BoardEngine.MINE_CELL)
+                    enqueue(cell);
+
+                int n = neighbours(cell, neighbours);
+                for (int k = 0; k < n; k++) {
+                    int nb = neighbours[k];
+                    if (!engine.isCovered(nb) && engine.getCell(nb) > 0)
+                        enqueue(nb);
+                }
+            }
+        }
+        engine.clearChanges();
+    }
+
+    private void enqueue(int cell) {
+        if (queued[cell])
+            return;
+        if (work_size == work.length)
+            work = Arrays.copyOf(work, work_size * 2);
+        work[work_size++] = cell;
+        queued[cell] = true;
+    }
+
+    /**
+     * Déductions locales jusqu'à épuisement de la file
+     */
+    private void propagate() {
+        while (work_size > 0) {
+            int cell = work[--work_size];
+            queued[cell] = false;
+            examine(cell);
+        }
+    }
+
+    private void examine(int cell) {
+        int unknown_count = collectUnknowns(cell, unknowns_a);
+        if (unknown_count <= 0)
+            return;
+        int need = need(cell);
+
+        if (need == 0) {
+            for (int k = 0; k < unknown_count; k++)
+                setKnown(unknowns_a[k], SAFE);
+            return;
+        }
+        if (need == unknown_count) {
+            for (int k = 0; k < unknown_count; k++)
+                setKnown(unknowns_a[k], MINE);
+            return;
+        }
+
+        // Paires : chiffres à distance 2 au plus partageant des inconnues
+        int row = cell / cols;
+        int col = cell - row * cols;
+        for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+            for (int c = Math.max(0, col - 2); c <= Math.min(cols - 1, col + 2); c++) {
+                int other = r * cols + c;
+                if (other == cell || engine.isCovered(other) || engine.getCell(other) == 0)
+                    continue;
+                if (comparePair(cell, need, unknown_count, other))
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Règle des paires : si besoin(B) - besoin(A) égale le nombre d'inconnues
+     * propres à B, elles sont toutes minées et celles propres à A sont sûres
+     */
+    private boolean comparePair(int cell, int need_a, int count_a, int other) {
+        int count_b = collectUnknowns(other, unknowns_b);
+        if (count_b <= 0)
+            return false;
+        int need_b = need(other);
+
+        int size_a = difference(unknowns_a, count_a, unknowns_b, count_b, only_a);
+        int size_b = difference(unknowns_b, count_b, unknowns_a, count_a, only_b);
+        if (size_a == count_a)
+            return false; // aucune inconnue commune
+
+        if (need_b - need_a == size_b && size_a + size_b > 0) {
+            for (int k = 0; k < size_b; k++)
+                setKnown(only_b[k], MINE);
+            for (int k = 0; k < size_a; k++)
+                setKnown(only_a[k], SAFE);
+            return true;
+        }
+        if (need_a - need_b == size_a && size_a + size_b > 0) {
+            for (int k = 0; k < size_a; k++)
+                setKnown(only_a[k], MINE);
+            for (int k = 0; k < size_b; k++)
+                setKnown(only_b[k], SAFE);
+            return true;
+        }
+        return false;
+    }
+
+    private static int difference(int[] a, int count_a, int[] b, int count_b, int[] out) {
+        int size = 0;
+        for (int i = 0; i < count_a; i++) {
+            boolean shared = false;
+            for (int j = 0; j < count_b && !shared; j++)
+                shared = a[i] == b[j];
+            if (!shared)
+                out[size++] = a[i];
+        }
+        return size;
+    }
+
+    /**
+     * Chiffre moins les mines déjà connues autour de la case
+     */
+    private int need(int cell) {
+        int need = engine.getCell(cell);
+        int n = neighbours(cell, neighbours);
+        for (int k = 0; k < n; k++) {
+            if (isKnownMine(neighbours[k]))
+                need--;
+        }
+        return need;
+    }
+
+    private int collectUnknowns(int cell, int[] out) {
+        int count = 0;
+        int n = neighbours(cell, neighbours);
+        for (int k = 0; k < n; k++) {
+            if (isUnknown(neighbours[k]))
+                out[count++] = neighbours[k];
+        }
+        return count;
+    }
+
+    private boolean isKnownMine(int cell) {
+        return known[cell] == MINE;
+    }
+
+    private boolean isUnknown(int cell) {
+        return engine.isCovered(cell) && known[cell] == UNKNOWN;
+    }
+
+    /**
+     * Case inconnue que le joueur peut découvrir (sans drapeau)
+     */
+    private boolean isPlayable(int cell) {
+        return isUnknown(cell) && !engine.isMarked(cell);
+    }
+
+    private void setKnown(int cell, byte state) {
+        if (known[cell] != UNKNOWN)
+            return;
+        known[cell] = state;
+
+        if (state == SAFE) {
+            if (safe_size == safe.length)
+                safe = Arrays.copyOf(safe, safe_size * 2);
+            safe[safe_size++] = cell;
+        } else {
+            known_mines++;
+        }
+
+        int n = neighbours(cell, neighbours);
+        for (int k = 0; k < n; k++) {
+            int nb = neighbours[k];
+            if (!engine.isCovered(nb) && engine.getCell(nb) > 0)
+                enqueue(nb);
+        }
+    }
+
+    private int neighbours(int cell, int[] out) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int n = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            if (r < 0 || r >= rows)
+                continue;
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (c < 0 || c >= cols || (r == row && c == col))
+                    continue;
+                out[n++] = r * cols + c;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Énumère chaque composante de la frontière. Retourne vrai si une case
+     * a pu être déterminée ; calcule au passage les probabilités de mine.
+     * Interrompue, l'énumération s'arrête sans rien conclure.
+     */
+    private boolean enumerateFrontier() {
+        interrupted = false;
+        if (probability == null)
+            probability = new double[all_cells];
+
+        int remaining = engine.getMines() - known_mines;
+        int frontier_size = 0;
+        int interior = 0;
+
+        for (int i = 0; i < all_cells; i++) {
+            if (!isUnknown(i))
+                continue;
+            if (hasRevealedNeighbour(i)) {
+                if (frontier_size == frontier.length)
+                    frontier = Arrays.copyOf(frontier, frontier_size * 2);
+                frontier[frontier_size++] = i;
+            } else {
+                interior++;
+            }
+        }
+
+        // Règle globale : toutes les mines restantes sont trouvées, ou toutes les inconnues en sont
+        if (remaining == 0 || remaining == frontier_size + interior) {
+            byte state = remaining == 0 ? SAFE : MINE;
+            boolean found = false;
+            for (int i = 0; i < all_cells; i++) {
+                if (isUnknown(i)) {
+                    setKnown(i, state);
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        boolean found = false;
+        double expected_frontier_mines = 0;
+        mines_available = remaining;
+
+        for (int f = 0; f < frontier_size; f++) {
+            int start = frontier[f];
+            if (comp_index[start] >= 0 || !isUnknown(start))
+                continue;
+
+            buildComponent(start);
+            if (comp_size <= MAX_COMPONENT) {
+                countSolutions();
+                if (interrupted)
+                    break;
+                if (solutions > 0) {
+                    expected_frontier_mines += solution_mines / solutions;
+                    for (int i = 0; i < comp_size; i++) {
+                        probability[comp_cells[i]] = hits[i] / solutions;
+                        if (hits[i] == 0)
+                            found |= mark(comp_cells[i], SAFE);
+                        else if (hits[i] == solutions)
+                            found |= mark(comp_cells[i], MINE);
+                    }
+                }
+            } else {
+                // Composante trop grande : estimation par le chiffre voisin le plus contraignant
+                for (int i = 0; i < comp_size; i++) {
+                    probability[comp_cells[i]] = localEstimate(comp_cells[i]);
+                    expected_frontier_mines += probability[comp_cells[i]];
+                }
+            }
+        }
+        for (int f = 0; f < frontier_size; f++)
+            comp_index[frontier[f]] = -1;
+        if (interrupted)
+            return false;
+
+        double interior_probability = interior == 0 ? 1.0
+                : Math.max(0.0, Math.min(1.0, (remaining - expected_frontier_mines) / interior));
+        for (int i = 0; i < all_cells; i++) {
+            if (isUnknown(i) && !hasRevealedNeighbour(i))
+                probability[i] = interior_probability;
+        }
+        return found;
+    }
+
+    private double localEstimate(int cell) {
+        double estimate = 0.0;
+        int n = neighbours(cell, unknowns_b);
+        for (int k = 0; k < n; k++) {
+            int number = unknowns_b[k];
+            if (engine.isCovered(number))
+                continue;
+            int count = collectUnknowns(number, unknowns_a);
+            if (count > 0)
+                estimate = Math.max(estimate, (double) need(number) / count);
+        }
+        return Math.min(1.0, estimate);
+    }
+
+    private boolean mark(int cell, byte state) {
+        if (known[cell] != UNKNOWN)
+            return false;
+        setKnown(cell, state);
+        return true;
+    }
+
+    private boolean hasRevealedNeighbour(int cell) {
+        int n = neighbours(cell, neighbours);
+        for (int k = 0; k < n; k++) {
+            if (!engine.isCovered(neighbours[k]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parcours en largeur des inconnues reliées par des chiffres communs,
+     * puis liste des contraintes si la composante est assez petite
+     */
+    private void buildComponent(int start) {
+        comp_size = 0;
+        cons_count = 0;
+        stamp++;
+
+        comp_index[start] = comp_size;
+        comp_cells[comp_size++] = start;
+
+        for (int head = 0; head < comp_size; head++) {
+            int cell = comp_cells[head];
+            int n = neighbours(cell, unknowns_b);
+            for (int k = 0; k < n; k++) {
+                int number = unknowns_b[k];
+                if (engine.isCovered(number) || cons_stamp[number] == stamp)
+                    continue;
+                cons_stamp[number] = stamp;
+
+                int m = collectUnknowns(number, unknowns_a);
+                for (int j = 0; j < m; j++) {
+                    int other = unknowns_a[j];
+                    if (comp_index[other] >= 0)
+                        continue;
+                    if (comp_size == comp_cells.length)
+                        comp_cells = Arrays.copyOf(comp_cells, comp_size * 2);
+                    comp_index[other] = comp_size;
+                    comp_cells[comp_size++] = other;
+                }
+            }
+        }
+
+        if (comp_size > MAX_COMPONENT)
+            return;
+
+        // Contraintes de la composante : chaque chiffre touchant l'une de ses cases
+        Arrays.fill(cell_cons_count, 0, comp_size, 0);
+        stamp++;
+        for (int i = 0; i < comp_size; i++) {
+            int n = neighbours(comp_cells[i], unknowns_b);
+            for (int k = 0; k < n; k++) {
+                int number = unknowns_b[k];
+                if (engine.isCovered(number) || cons_stamp[number] == stamp)
+                    continue;
+                cons_stamp[number] = stamp;
+
+                int constraint = cons_count++;
+                cons_need[constraint] = need(number);
+                cons_placed[constraint] = 0;
+                cons_remaining[constraint] = 0;
+
+                int m = collectUnknowns(number, unknowns_a);
+                for (int j = 0; j < m; j++) {
+                    int index = comp_index[unknowns_a[j]];
+                    cell_cons[index * 8 + cell_cons_count[index]++] = constraint;
+                    cons_remaining[constraint]++;
+                }
+            }
+        }
+    }
+
+    private void countSolutions() {
+        solutions = 0;
+        solution_mines = 0;
+        placed_total = 0;
+        Arrays.fill(hits, 0, comp_size, 0);
+        enumerate(0);
+    }
+
+    private void enumerate(int depth) {
+        if ((++nodes & (INTERRUPT_CHECK - 1)) == 0 && Thread.currentThread().isInterrupted())
+            interrupted = true;
+        if (interrupted)
+            return;
+        if (depth == comp_size) {
+            solutions++;
+            solution_mines += placed_total;
+            for (int i = 0; i < comp_size; i++) {
+                if (assignment[i] == 1)
+                    hits[i]++;
+            }
+            return;
+        }
+
+        for (byte value = 0; value <= 1; value++) {
+            if (value == 1 && placed_total == mines_available)
+                break;
+            if (assign(depth, value))
+                enumerate(depth + 1);
+            unassign(depth, value);
+        }
+    }
+
+    private boolean assign(int index, byte value) {
+        assignment[index] = value;
+        placed_total += value;
+        boolean feasible = true;
+        int base = index * 8;
+        for (int k = 0; k < cell_cons_count[index]; k++) {
+            int constraint = cell_cons[base + k];
+            cons_remaining[constraint]--;
+            cons_placed[constraint] += value;
+            if (cons_placed[constraint] > cons_need[constraint]
+                    || cons_placed[constraint] + cons_remaining[constraint] < cons_need[constraint])
+                feasible = false;
+        }
+        return feasible;
+    }
+
+    private void unassign(int index, byte value) {
+        placed_total -= value;
+        int base = index * 8;
+        for (int k = 0; k < cell_cons_count[index]; k++) {
+            int constraint = cell_cons[base + k];
+            cons_remaining[constraint]++;
+            cons_placed[constraint] -= value;
+        }
+    }
+
+    /**
+     * Case inconnue la moins probablement minée ; un coin au premier coup
+     */
+    private int bestGuess() {
+        if (probability == null || !anySeen()) {
+            for (int corner : new int[] {0, cols - 1, all_cells - cols, all_cells - 1}) {
+                if (isPlayable(corner))
+                    return corner;
+            }
+        }
+
+        int best = -1;
+        double best_probability = 2.0;
+        for (int i = 0; i < all_cells; i++) {
+            if (isPlayable(i) && (probability == null || probability[i] < best_probability)) {
+                best = i;
+                best_probability = probability == null ? 0.0 : probability[i];
+            }
+        }
+        return best;
+    }
+
+    private boolean anySeen() {
+        for (int i = 0; i < all_cells; i++) {
+            if (seen[i])
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+package mines;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Mesure du démarrage : temps écoulé depuis le lancement de la JVM jusqu'à
+ * main() puis jusqu'au premier affichage de chaque fenêtre (sélection du
+ * mode, plateau), écrit sur la sortie d'erreur après le premier plateau
+ * affiché (java.management, pour l'heure de lancement de la JVM, n'est
+ * chargé qu'à ce moment pour ne pas fausser la mesure). Après l'écran de
+ * sélection, le temps du plateau comprend celui du choix : fixer mines.mode
+ * pour mesurer.
+ *
+ * Activée par -Dmines.startupProbe=true ; avec =exit, l'application se
+ * ferme dès le premier plateau affiché (mesures scriptées, entraînement de
+ * l'archive CDS du profil Maven cds).
+ */
+public final class StartupProbe {
+
+    public static final String PROPERTY = "mines.startupProbe";
+
+    private static final String MODE = System.getProperty(PROPERTY);
+    private static final boolean ENABLED = MODE != null && !MODE.equals("false");
+    private static final boolean EXIT = "exit".equals(MODE);
+
+    private static final Set<String> seen = new HashSet<>();
+    // Événements pas encore écrits et leur System.nanoTime()
+    private static final Map<String, Long> pending = new LinkedHashMap<>();
+
+    private StartupProbe() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Note la première occurrence d'un événement
+     */
+    public static synchronized void mark(String event) {
+        if (ENABLED && seen.add(event))
+            pending.put(event, System.nanoTime());
+    }
+
+    /**
+     * Écrit les événements notés, en ms depuis le lancement de la JVM
+     */
+    public static synchronized void report() {
+        if (pending.isEmpty())
+            return;
+        long start = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000;
+        for (Map.Entry<String, Long> event : pending.entrySet())
+            System.err.println("Démarrage: " + event.getKey() + " à " + (event.getValue() - start) / 1_000_000 + " ms");
+        pending.clear();
+    }
+
+    /**
+     * Premier dessin d'une fenêtre (appelé depuis paintComponent)
+     */
+    public static void painted(String window) {
+        if (ENABLED)
+            mark("premier affichage " + window);
+    }
+
+    /**
+     * Premier dessin d'un plateau ; en mode exit, ferme l'application une fois
+     * le dessin terminé
+     */
+    public static void boardPainted() {
+        if (!ENABLED)
+            return;
+        painted("plateau");
+        report();
+        if (EXIT && !GraphicsEnvironment.isHeadless())
+            SwingUtilities.invokeLater(() -> System.exit(0));
+    }
+
+    /**
+     * Lance l'application (mode choisi par mines.mode, solo par défaut), ou
+     * sans écran dessine hors écran un plateau de chaque mode, pour mesurer
+     * ou entraîner l'archive CDS sans interaction
+     */
+    public static void main(String[] args) {
+        mark("main");
+        if (!GraphicsEnvironment.isHeadless()) {
+            if (System.getProperty(MultiplayerMines.MODE_PROPERTY) == null)
+                System.setProperty(MultiplayerMines.MODE_PROPERTY, "solo");
+            MultiplayerMines.main(args);
+            return;
+        }
+
+        TileSet.preload();
+        paintOffscreen(new Board(new JLabel()));
+        Board noGuess = new Board(new JLabel());
+        noGuess.setNoGuess(true);
+        paintOffscreen(noGuess);
+        paintOffscreen(new MultiplayerBoard(new JLabel(), true, 2));
+        mark("plateaux dessinés hors écran");
+        report();
+        System.exit(0);
+    }
+
+    private static void paintOffscreen(JComponent board) {
+        board.setSize(board.getPreferredSize());
+        BufferedImage image = new BufferedImage(board.getWidth(), board.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        board.paint(g);
+        g.dispose();
+    }
+}
@@ -0,0 +1,199 @@
+package mines;
+
+import static mines.BoardRenderer.*;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Les 13 tuiles du plateau, chargées une seule fois pour tout le processus
+ * (en parallèle, éventuellement en arrière-plan dès le lancement) et
+ * partagées en lecture seule par tous les plateaux : l'atlas et la couleur
+ * moyenne de chaque tuile ne sont jamais modifiés après la construction.
+ */
+public final class TileSet {
+
+    public static final int CELL_SIZE = 15;
+
+    private static CompletableFuture<TileSet> shared;
+
+    private final int cellSize;
+    private final BufferedImage atlas;
+    private final int[] colours = new int[NUM_IMAGES];
+
+    private TileSet(Image[] tiles, int cellSize) {
+        this.cellSize = cellSize;
+        this.atlas = createImage(NUM_IMAGES * cellSize, cellSize);
+
+        Graphics g = atlas.getGraphics();
+        for (int i = 0; i < NUM_IMAGES; i++)
+            g.drawImage(tiles[i], i * cellSize, 0, null);
+        g.dispose();
+
+        for (int i = 0; i < NUM_IMAGES; i++)
+            colours[i] = averageColour(i);
+    }
+
+    /**
+     * Lance le chargement en arrière-plan s'il n'a pas déjà commencé
+     */
+    public static synchronized CompletableFuture<TileSet> preload() {
+        if (shared == null)
+            shared = CompletableFuture.supplyAsync(TileSet::load);
+        return shared;
+    }
+
+    /**
+     * Jeu de tuiles commun, chargé au premier appel (ou attendu s'il est en cours)
+     */
+    public static TileSet shared() {
+        return preload().join();
+    }
+
+    private static TileSet load() {
+        Image[] tiles = IntStream.range(0, NUM_IMAGES)
+                .parallel()
+                .mapToObj(TileSet::loadTile)
+                .toArray(Image[]::new);
+        return new TileSet(tiles, CELL_SIZE);
+    }
+
+    /**
+     * Charge une image avec plusieurs chemins de recherche
+     */
+    private static Image loadTile(int index) {
+        String[] paths = {
+            "/" + index + ".gif",              // Racine du classpath
+            "/images/" + index + ".gif",       // Dans dossier images
+            "images/" + index + ".gif",        // Relatif
+            index + ".gif"                     // Direct
+        };
+
+        for (String path : paths) {
+            URL url = TileSet.class.getResource(path);
+            if (url == null)
+                continue;
+            try {
+                BufferedImage image = ImageIO.read(url);
+                if (image != null)
+                    return image;
+            } catch (IOException e) {
+                // Continuer avec le prochain chemin
+            }
+        }
+
+        // Si aucune image trouvée, créer un placeholder
+        System.err.println("ATTENTION: Image " + index + ".gif non trouvée dans le classpath");
+        return createPlaceholderImage(index);
+    }
+
+    /**
+     * Crée une image de remplacement en cas d'échec de chargement
+     */
+    private static Image createPlaceholderImage(int index) {
+        BufferedImage placeholder = new BufferedImage(CELL_SIZE, CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics g = placeholder.getGraphics();
+
+        // Couleur de fond selon le type
+        if (index == DRAW_MINE) {
+            g.setColor(Color.RED);
+            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
+            g.setColor(Color.BLACK);
+            g.drawString("*", 5, 12);
+        } else if (index == DRAW_COVER) {
+            g.setColor(Color.LIGHT_GRAY);
+            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
+            g.setColor(Color.GRAY);
+            g.drawRect(0, 0, CELL_SIZE - 1, CELL_SIZE - 1);
+        } else if (index == DRAW_MARK) {
+            g.setColor(Color.YELLOW);
+            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
+            g.setColor(Color.RED);
+            g.drawString("F", 4, 12);
+        } else if (index == DRAW_WRONG_MARK) {
+            g.setColor(Color.ORANGE);
+            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
+            g.setColor(Color.BLACK);
+            g.drawString("X", 4, 12);
+        } else {
+            // Cases numérotées (0-8)
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, CELL_SIZE, CELL_SIZE);
+            g.setColor(Color.BLACK);
+            g.drawRect(0, 0, CELL_SIZE - 1, CELL_SIZE - 1);
+            if (index > 0 && index < 9) {
+                // Couleurs différentes selon le chiffre
+                Color[] colors = {
+                    Color.BLACK,  // 0
+                    Color.BLUE,   // 1
+                    Color.GREEN,  // 2
+                    Color.RED,    // 3
+                    new Color(0, 0, 128),    // 4 - Bleu foncé
+                    new Color(128, 0, 0),    // 5 - Rouge foncé
+                    Color.CYAN,   // 6
+                    Color.BLACK,  // 7
+                    Color.GRAY    // 8
+                };
+                g.setColor(colors[index]);
+                g.drawString(String.valueOf(index), 4, 12);
+            }
+        }
+
+        g.dispose();
+        return placeholder;
+    }
+
+    private int averageColour(int tile) {
+        long red = 0, green = 0, blue = 0;
+        for (int y = 0; y < cellSize; y++) {
+            for (int x = 0; x < cellSize; x++) {
+                int rgb = atlas.getRGB(tile * cellSize + x, y);
+                red += (rgb >> 16) & 0xFF;
+                green += (rgb >> 8) & 0xFF;
+                blue += rgb & 0xFF;
+            }
+        }
+        int n = cellSize * cellSize;
+        return (int) (red / n) << 16 | (int) (green / n) << 8 | (int) (blue / n);
+    }
+
+    /**
+     * Image compatible avec l'écran si possible, pour que Java2D puisse l'accélérer
+     */
+    static BufferedImage createImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration()
+                    .createCompatibleImage(width, height);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Couleur moyenne (RGB) d'une tuile
+     */
+    public int getAverageColour(int tile) {
+        return colours[tile];
+    }
+
+    /**
+     * Les tuiles côte à côte ; partagé, ne pas y dessiner
+     */
+    BufferedImage getAtlas() {
+        return atlas;
+    }
+}
@@ -0,0 +1,379 @@
+package mines;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class BoardEngineTest {
+
+    /**
+     * Un clic sur un plateau de 4096x4096 sans mine découvre tout le plateau,
+     * même sur une pile de thread réduite (la propagation n'est pas récursive)
+     */
+    @Test
+    public void singleClickOpensHugeEmptyBoard() throws InterruptedException {
+        BoardEngine engine = new BoardEngine(new BoardConfig(4096, 4096, 0));
+        engine.newGame(1);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                engine.reveal(0);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "reveal", 256 * 1024);
+        thread.start();
+        thread.join();
+
+        if (failure.get() != null)
+            throw new AssertionError("Échec de la propagation", failure.get());
+        for (int i = 0; i < engine.getAllCells(); i++)
+            assertEquals("Case " + i, BoardEngine.EMPTY_CELL, engine.getCell(i));
+        assertEquals(0, engine.getCoveredSafeCells());
+        assertFalse(engine.isInGame());
+        assertTrue(engine.isWon());
+    }
+
+    /**
+     * Nombre de mines exact et chiffre de chaque case égal au nombre de mines voisines
+     */
+    @Test
+    public void countsMatchNeighbourMines() {
+        for (BoardConfig config : new BoardConfig[] {BoardConfig.BEGINNER, BoardConfig.EXPERT,
+                new BoardConfig(1, 50, 10), new BoardConfig(40, 1, 39), new BoardConfig(100, 100, 9000)}) {
+            BoardEngine engine = new BoardEngine(config);
+            engine.newGame(5);
+            assertEquals(config.getMines(), countMines(engine));
+            assertCounts(engine);
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameGrid() {
+        BoardEngine a = new BoardEngine(BoardConfig.EXPERT);
+        BoardEngine b = new BoardEngine(BoardConfig.EXPERT);
+        a.newGame(123);
+        b.newGame(123);
+        assertArrayEquals(cells(a), cells(b));
+        assertEquals(123, a.getSeed());
+
+        b.newGame(124);
+        assertFalse(Arrays.equals(cells(a), cells(b)));
+    }
+
+    /**
+     * Balayage, mise à jour incrémentale et choix automatique donnent la même
+     * grille, à toutes les densités, drapeaux d'une partie différée compris
+     */
+    @Test
+    public void generationStrategiesGiveIdenticalGrids() {
+        for (BoardConfig config : new BoardConfig[] {BoardConfig.EXPERT, new BoardConfig(200, 300, 600),
+                new BoardConfig(100, 100, 1000), new BoardConfig(1, 50, 10), new BoardConfig(37, 1, 30),
+                new BoardConfig(50, 50, 2490)}) {
+            BoardEngine incremental = new BoardEngine(config);
+            incremental.setGeneration(BoardEngine.Generation.INCREMENTAL);
+            BoardEngine sweep = new BoardEngine(config);
+            sweep.setGeneration(BoardEngine.Generation.SWEEP);
+            BoardEngine auto = new BoardEngine(config);
+            assertEquals(BoardEngine.Generation.AUTO, auto.getGeneration());
+
+            for (long seed = 0; seed < 5; seed++) {
+                for (BoardEngine engine : new BoardEngine[] {incremental, sweep, auto})
+                    engine.newGame(seed, (int) (seed * 7 % config.getAllCells()));
+                assertArrayEquals(cells(incremental), cells(sweep));
+                assertArrayEquals(cells(incremental), cells(auto));
+                assertCounts(sweep);
+
+                for (BoardEngine engine : new BoardEngine[] {incremental, sweep, auto}) {
+                    engine.newGameDeferred(seed);
+                    engine.mark(config.getAllCells() - 1);
+                    engine.reveal(0);
+                }
+                assertArrayEquals(cells(incremental), cells(sweep));
+                assertArrayEquals(cells(incremental), cells(auto));
+            }
+        }
+    }
+
+    /**
+     * La case épargnée et ses voisines n'ont jamais de mine ; sur un plateau
+     * trop plein, seule la case épargnée l'est
+     */
+    @Test
+    public void safeCellAndNeighboursHaveNoMine() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        for (long seed = 0; seed < 200; seed++) {
+            int safe = (int) (seed % engine.getAllCells());
+            engine.newGame(seed, safe);
+            for (int r = -1; r <= 1; r++) {
+                for (int c = -1; c <= 1; c++) {
+                    int row = safe / 9 + r;
+                    int col = safe % 9 + c;
+                    if (row >= 0 && row < 9 && col >= 0 && col < 9)
+                        assertNotEquals(BoardEngine.COVERED_MINE_CELL, engine.getCell(row * 9 + col));
+                }
+            }
+            assertEquals(10, countMines(engine));
+        }
+
+        BoardEngine full = new BoardEngine(new BoardConfig(3, 3, 8));
+        full.newGame(1, 4);
+        assertEquals(BoardEngine.COVER_FOR_CELL + 8, full.getCell(4));
+        assertEquals(8, countMines(full));
+    }
+
+    /**
+     * Partie différée : le premier clic n'est jamais une mine, ouvre une zone,
+     * et les drapeaux posés avant lui sont conservés
+     */
+    @Test
+    public void deferredFirstClickIsSafeAndKeepsFlags() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        for (long seed = 0; seed < 100; seed++) {
+            engine.newGameDeferred(seed);
+            assertTrue(engine.isDeferred());
+            engine.mark(0);
+            // Loin du drapeau, pour que la propagation ne l'atteigne pas
+            int click = 240 + (int) seed;
+
+            assertTrue(engine.reveal(click));
+            assertFalse(engine.isDeferred());
+            assertEquals(BoardEngine.EMPTY_CELL, engine.getCell(click));
+            assertTrue(engine.isMarked(0));
+            assertEquals(98, engine.getMinesLeft());
+            assertEquals(99, countMines(engine));
+            assertTrue(engine.isInGame());
+        }
+    }
+
+    @Test
+    public void revealingAMineLosesTheGame() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGame(9);
+        int mine = firstMine(engine);
+
+        assertTrue(engine.reveal(mine));
+        assertTrue(engine.isLost());
+        assertFalse(engine.isWon());
+        assertFalse(engine.isInGame());
+        assertFalse(engine.reveal(mine));
+    }
+
+    @Test
+    public void revealingEverySafeCellWinsTheGame() {
+        BoardEngine engine = new BoardEngine(BoardConfig.INTERMEDIATE);
+        engine.newGame(11);
+        int mine = firstMine(engine);
+        assertTrue(engine.mark(mine));
+        assertFalse("Case marquée", engine.reveal(mine));
+        engine.unmark(mine);
+
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.isCovered(i) && engine.getCell(i) != BoardEngine.COVERED_MINE_CELL) {
+                assertTrue(engine.isInGame());
+                engine.reveal(i);
+            }
+        }
+        assertEquals(0, engine.getCoveredSafeCells());
+        assertTrue(engine.isWon());
+        assertFalse(engine.isInGame());
+    }
+
+    @Test
+    public void marksAreLimitedToTheNumberOfMines() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGame(2);
+        for (int i = 0; i < 10; i++)
+            assertTrue(engine.mark(i));
+        assertEquals(0, engine.getMinesLeft());
+        assertFalse(engine.mark(10));
+        engine.unmark(0);
+        assertEquals(1, engine.getMinesLeft());
+    }
+
+    /**
+     * Rectangle modifié et liste des cases modifiées après un coup
+     */
+    @Test
+    public void changesAreTracked() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.trackChangedCells(true);
+        engine.newGame(4);
+        assertTrue(engine.isAllChanged());
+        assertTrue(engine.hasChanges());
+        engine.clearChanges();
+        engine.clearChangedCells();
+        assertFalse(engine.hasChanges());
+
+        int cell = firstSafeNumber(engine);
+        engine.reveal(cell);
+        assertTrue(engine.hasChanges());
+        int row = cell / engine.getCols();
+        int col = cell % engine.getCols();
+        assertEquals(row, engine.getChangedMinRow());
+        assertEquals(row, engine.getChangedMaxRow());
+        assertEquals(col, engine.getChangedMinCol());
+        assertEquals(col, engine.getChangedMaxCol());
+        assertFalse(engine.isAllChanged());
+        assertEquals(1, engine.getChangedCellCount());
+        assertEquals(cell, engine.getChangedCells()[0]);
+
+        // Au-delà d'une entrée par case, toute la grille est considérée comme modifiée
+        engine.clearChangedCells();
+        int mine = firstMine(engine);
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            engine.mark(mine);
+            engine.unmark(mine);
+        }
+        assertTrue(engine.isAllChanged());
+    }
+
+    /**
+     * Les cases ouvertes par propagation sont notifiées une fois chacune
+     */
+    @Test
+    public void revealListenerSeesFloodedCells() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(6, 200);
+        int[] seen = new int[engine.getAllCells()];
+        engine.setRevealListener(cell -> seen[cell]++);
+        int before = engine.getCoveredSafeCells();
+        engine.reveal(200);
+
+        int notified = 0;
+        for (int count : seen) {
+            assertTrue(count <= 1);
+            notified += count;
+        }
+        assertEquals(before - engine.getCoveredSafeCells() - 1, notified);
+    }
+
+    /**
+     * Grille compactée relue à l'identique, compteurs de la partie compris
+     */
+    @Test
+    public void packedGridRoundTrip() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (BoardConfig config : new BoardConfig[] {BoardConfig.BEGINNER, BoardConfig.EXPERT, new BoardConfig(7, 13, 20)}) {
+            BoardEngine engine = new BoardEngine(config);
+            engine.newGame(random.nextLong());
+            for (int k = 0; k < 20 && engine.isInGame(); k++) {
+                int position = random.nextInt(engine.getAllCells());
+                if (engine.getCell(position) == BoardEngine.COVERED_MINE_CELL)
+                    engine.mark(position);
+                else
+                    engine.reveal(position);
+            }
+
+            ByteBuffer grid = ByteBuffer.allocate((int) engine.packedGridBytes());
+            engine.writeGrid(grid);
+            grid.flip();
+            BoardEngine copy = new BoardEngine(config);
+            copy.readGrid(grid, engine.getSeed(), engine.getMinesLeft(), engine.isInGame(), false);
+
+            assertArrayEquals(cells(engine), cells(copy));
+            assertEquals(engine.getCoveredSafeCells(), copy.getCoveredSafeCells());
+            assertEquals(engine.isWon(), copy.isWon());
+            assertEquals(engine.isLost(), copy.isLost());
+            assertEquals(engine.getSeed(), copy.getSeed());
+        }
+    }
+
+    /**
+     * Copie indépendante de la position : la partie d'origine peut continuer
+     */
+    @Test
+    public void copyFromKeepsThePosition() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(8, 0);
+        engine.reveal(0);
+        engine.mark(firstMine(engine));
+        BoardEngine copy = new BoardEngine(BoardConfig.EXPERT);
+        copy.copyFrom(engine);
+
+        assertArrayEquals(cells(engine), cells(copy));
+        assertEquals(engine.getMinesLeft(), copy.getMinesLeft());
+        assertEquals(engine.getCoveredSafeCells(), copy.getCoveredSafeCells());
+        assertEquals(engine.getSeed(), copy.getSeed());
+        assertTrue(copy.isInGame());
+
+        int mine = firstMine(engine);
+        engine.reveal(mine);
+        assertTrue(engine.isLost());
+        assertTrue(copy.isInGame());
+        assertEquals(BoardEngine.COVERED_MINE_CELL, copy.getCell(mine));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyFromRejectsAnotherConfig() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(1);
+        new BoardEngine(BoardConfig.BEGINNER).copyFrom(engine);
+    }
+
+    static int[] cells(BoardEngine engine) {
+        int[] cells = new int[engine.getAllCells()];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = engine.getCell(i);
+        return cells;
+    }
+
+    static int countMines(BoardEngine engine) {
+        int mines = 0;
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.getCell(i) % BoardEngine.COVER_FOR_CELL == BoardEngine.MINE_CELL)
+                mines++;
+        }
+        return mines;
+    }
+
+    /**
+     * Chaque case sans mine vaut le nombre de ses voisines minées
+     */
+    static void assertCounts(BoardEngine engine) {
+        int rows = engine.getRows();
+        int cols = engine.getCols();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int value = engine.getCell(r * cols + c) % BoardEngine.COVER_FOR_CELL;
+                if (value == BoardEngine.MINE_CELL)
+                    continue;
+                int mines = 0;
+                for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+                    for (int nc = Math.max(0, c - 1); nc <= Math.min(cols - 1, c + 1); nc++) {
+                        if (engine.getCell(nr * cols + nc) % BoardEngine.COVER_FOR_CELL == BoardEngine.MINE_CELL)
+                            mines++;
+                    }
+                }
+                assertEquals("Case " + r + "," + c, mines, value);
+            }
+        }
+    }
+
+    private static int firstMine(BoardEngine engine) {
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.getCell(i) == BoardEngine.COVERED_MINE_CELL)
+                return i;
+        }
+        throw new AssertionError("Aucune mine");
+    }
+
+    private static int firstSafeNumber(BoardEngine engine) {
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            int value = engine.getCell(i) - BoardEngine.COVER_FOR_CELL;
+            if (value > 0 && value < BoardEngine.MINE_CELL)
+                return i;
+        }
+        throw new AssertionError("Aucun chiffre");
+    }
+}
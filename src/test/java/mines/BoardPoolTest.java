@@ -0,0 +1,110 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BoardPoolTest {
+
+    /**
+     * Le producteur remplit la file ; les parties servies sont prêtes à jouer
+     */
+    @Test
+    public void producerFillsTheQueue() throws InterruptedException {
+        BoardPool pool = new BoardPool(3);
+        try {
+            BoardEngine first = pool.take(BoardConfig.EXPERT, false).getEngine();
+            assertEquals(1, pool.getHitCount() + pool.getMissCount());
+            assertPlayable(first, BoardConfig.EXPERT);
+
+            awaitReady(pool, BoardConfig.EXPERT, false, 3);
+            BoardEngine second = pool.take(BoardConfig.EXPERT, false).getEngine();
+            assertNotSame(first, second);
+            assertPlayable(second, BoardConfig.EXPERT);
+            assertTrue(pool.getHitCount() >= 1);
+
+            pool.recycle(first, false);
+            awaitReady(pool, BoardConfig.EXPERT, false, 3);
+            assertEquals(0, pool.getReadyCount(BoardConfig.BEGINNER, false));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, pool.getReadyCount(BoardConfig.EXPERT, false));
+    }
+
+    /**
+     * Mode sans devinette : la case de départ est déjà découverte
+     */
+    @Test
+    public void noGuessBoardsAreOpened() throws InterruptedException {
+        BoardPool pool = new BoardPool(2);
+        try {
+            BoardEngine engine = pool.take(BoardConfig.INTERMEDIATE, true).getEngine();
+            assertFalse(engine.isCovered(NoGuessGenerator.startCell(BoardConfig.INTERMEDIATE)));
+            assertTrue(engine.isInGame());
+
+            awaitReady(pool, BoardConfig.INTERMEDIATE, true, 2);
+            engine = pool.take(BoardConfig.INTERMEDIATE, true).getEngine();
+            assertFalse(engine.isCovered(NoGuessGenerator.startCell(BoardConfig.INTERMEDIATE)));
+            assertEquals(0, pool.getReadyCount(BoardConfig.INTERMEDIATE, false));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Grille impossible à vérifier dans le budget : la partie servie dans le
+     * thread appelant est ouverte au centre mais signalée comme non vérifiée,
+     * et le producteur jette ses grilles au lieu de les mettre en file
+     */
+    @Test
+    public void unverifiedBoardsAreNeverQueued() throws InterruptedException {
+        BoardConfig dense = new BoardConfig(16, 30, 300);
+        BoardPool pool = new BoardPool(1);
+        try {
+            BoardPool.Deal deal = pool.take(dense, true);
+            assertFalse(deal.isValidated());
+            assertFalse(deal.getEngine().isCovered(NoGuessGenerator.startCell(dense)));
+            assertPlayable(deal.getEngine(), dense);
+            assertEquals(1, pool.getMissCount());
+            assertEquals(1, pool.getFallbackCount());
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (pool.getDiscardCount() < 2) {
+                if (System.nanoTime() > deadline)
+                    throw new AssertionError("Aucune grille jetée");
+                Thread.sleep(5);
+            }
+            assertEquals(0, pool.getReadyCount(dense, true));
+
+            assertTrue(pool.take(BoardConfig.BEGINNER, false).isValidated());
+            assertEquals(1, pool.getFallbackCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyCapacity() {
+        new BoardPool(0);
+    }
+
+    private static void assertPlayable(BoardEngine engine, BoardConfig config) {
+        assertEquals(config, engine.getConfig());
+        assertTrue(engine.isInGame());
+        assertEquals(config.getMines(), BoardEngineTest.countMines(engine));
+    }
+
+    private static void awaitReady(BoardPool pool, BoardConfig config, boolean noGuess, int count)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (pool.getReadyCount(config, noGuess) < count) {
+            if (System.nanoTime() > deadline)
+                throw new AssertionError("File non remplie: " + pool.getReadyCount(config, noGuess));
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class BoardRendererTest {
+
+    private static final TileSet TILES = TileSet.shared();
+
+    /**
+     * Petit plateau : image persistante ; grand plateau : tuiles dessinées
+     * depuis l'atlas. Les deux donnent les tuiles attendues pixel par pixel.
+     */
+    @Test
+    public void tilesArePaintedWithAndWithoutBackbuffer() {
+        BoardEngine small = new BoardEngine(BoardConfig.EXPERT);
+        small.newGame(3, 0);
+        small.reveal(0);
+        small.mark(firstCovered(small));
+        BoardRenderer renderer = new BoardRenderer(TILES);
+        renderer.updateAll(small);
+        assertTrue(renderer.isCached());
+        Dimension size = renderer.getBoardSize(small);
+        assertPainted(renderer, small, new Rectangle(0, 0, size.width, size.height));
+
+        BoardEngine large = new BoardEngine(new BoardConfig(2000, 2000, 400_000));
+        large.newGame(3, 0);
+        large.reveal(0);
+        BoardRenderer direct = new BoardRenderer(TILES);
+        direct.updateAll(large);
+        assertFalse(direct.isCached());
+        assertPainted(direct, large, new Rectangle(7, 11, 400, 300));
+    }
+
+    /**
+     * Pas d'image persistante au-delà de quelques écrans : un plateau de
+     * 500x500 (7500 pixels de côté) est dessiné depuis l'atlas
+     */
+    @Test
+    public void backbufferIsLimitedToAFewScreens() {
+        BoardRenderer renderer = new BoardRenderer(TILES);
+        BoardEngine engine = new BoardEngine(new BoardConfig(500, 500, 25_000));
+        engine.newGame(1);
+        renderer.updateAll(engine);
+        assertFalse(renderer.isCached());
+        assertPainted(renderer, engine, new Rectangle(3000, 4000, 1920, 1080));
+
+        engine = new BoardEngine(new BoardConfig(180, 180, 3000));
+        engine.newGame(1);
+        renderer.updateAll(engine);
+        assertTrue(renderer.isCached());
+        Dimension size = renderer.getBoardSize(engine);
+        assertTrue((long) size.width * size.height <= BoardRenderer.MAX_BACKBUFFER_PIXELS);
+    }
+
+    /**
+     * Finie, la partie montre les mines et les drapeaux faux
+     */
+    @Test
+    public void tileForShowsMinesOnceTheGameIsOver() {
+        assertEquals(BoardRenderer.DRAW_COVER, BoardRenderer.tileFor(BoardEngine.COVERED_MINE_CELL, true));
+        assertEquals(BoardRenderer.DRAW_MINE, BoardRenderer.tileFor(BoardEngine.COVERED_MINE_CELL, false));
+        assertEquals(BoardRenderer.DRAW_MARK, BoardRenderer.tileFor(BoardEngine.MARKED_MINE_CELL, false));
+        assertEquals(BoardRenderer.DRAW_MARK, BoardRenderer.tileFor(BoardEngine.COVER_FOR_CELL + BoardEngine.MARK_FOR_CELL + 3, true));
+        assertEquals(BoardRenderer.DRAW_WRONG_MARK, BoardRenderer.tileFor(BoardEngine.COVER_FOR_CELL + BoardEngine.MARK_FOR_CELL + 3, false));
+        assertEquals(BoardRenderer.DRAW_COVER, BoardRenderer.tileFor(BoardEngine.COVER_FOR_CELL + 3, false));
+        assertEquals(3, BoardRenderer.tileFor(3, true));
+    }
+
+    /**
+     * Case sous un pixel et rectangle d'une case se correspondent à chaque zoom
+     */
+    @Test
+    public void geometryIsConsistentAtEveryZoom() {
+        BoardEngine engine = new BoardEngine(new BoardConfig(300, 500, 100));
+        BoardRenderer renderer = new BoardRenderer(TILES);
+        for (int zoom = 0; zoom <= BoardRenderer.MAX_ZOOM; zoom++) {
+            renderer.setZoom(zoom);
+            assertEquals(zoom, renderer.getZoom());
+            double pixels = renderer.getCellPixels();
+            assertEquals(pixels >= 4, renderer.isClickable());
+
+            Dimension size = renderer.getBoardSize(engine);
+            assertEquals(Math.ceil(500 * pixels), size.width, 1.0);
+            assertEquals(Math.ceil(300 * pixels), size.height, 1.0);
+            assertEquals(-1, renderer.cellAt(engine, size.width, 0));
+            assertEquals(-1, renderer.cellAt(engine, -1, 0));
+
+            int block = pixels >= 1 ? 1 : (int) Math.round(1 / pixels);
+            int row = 37 / block * block;
+            int col = 211 / block * block;
+            Rectangle bounds = renderer.getCellBounds(row, row, col, col);
+            assertEquals(row * 500 + col, renderer.cellAt(engine, bounds.x, bounds.y));
+        }
+        renderer.setZoom(BoardRenderer.MAX_ZOOM + 5);
+        assertEquals(BoardRenderer.MAX_ZOOM, renderer.getZoom());
+        renderer.setZoom(-1);
+        assertEquals(0, renderer.getZoom());
+    }
+
+    /**
+     * Vue d'ensemble : la couleur d'un bloc suit la part de cases découvertes
+     */
+    @Test
+    public void zoomedOutViewFollowsRevealedCells() {
+        BoardEngine engine = new BoardEngine(new BoardConfig(512, 512, 0));
+        engine.newGame(1);
+        BoardRenderer renderer = new BoardRenderer(TILES);
+        for (int zoom = 1; zoom <= BoardRenderer.MAX_ZOOM; zoom++) {
+            renderer.setZoom(zoom);
+            assertEquals(TILES.getAverageColour(BoardRenderer.DRAW_COVER), paintPixel(renderer, engine));
+        }
+
+        engine.reveal(0);
+        renderer.updateAll(engine);
+        for (int zoom = 1; zoom <= BoardRenderer.MAX_ZOOM; zoom++) {
+            renderer.setZoom(zoom);
+            assertEquals(TILES.getAverageColour(0), paintPixel(renderer, engine));
+        }
+        assertTrue(renderer.getFrameCount() > 0);
+        assertTrue(renderer.getAverageFrameNanos() > 0);
+    }
+
+    private static int paintPixel(BoardRenderer renderer, BoardEngine engine) {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        renderer.paint(g, engine, new Rectangle(0, 0, 8, 8));
+        g.dispose();
+        return image.getRGB(0, 0) & 0xFFFFFF;
+    }
+
+    private static void assertPainted(BoardRenderer renderer, BoardEngine engine, Rectangle clip) {
+        // Image de la taille du clipping, comme un viewport qui défile
+        BufferedImage image = new BufferedImage(clip.width, clip.height, BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        g.translate(-clip.x, -clip.y);
+        g.setClip(clip);
+        renderer.paint(g, engine, clip);
+        g.dispose();
+
+        BufferedImage atlas = TILES.getAtlas();
+        int size = TILES.getCellSize();
+        for (int y = clip.y; y < clip.y + clip.height; y += 3) {
+            for (int x = clip.x; x < clip.x + clip.width; x += 3) {
+                int cell = (y / size) * engine.getCols() + x / size;
+                int tile = BoardRenderer.tileFor(engine.getCell(cell), engine.isInGame());
+                int expected = atlas.getRGB(tile * size + x % size, y % size) & 0xFFFFFF;
+                assertEquals("Pixel " + x + "," + y, expected, image.getRGB(x - clip.x, y - clip.y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    private static int firstCovered(BoardEngine engine) {
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.isCovered(i))
+                return i;
+        }
+        throw new AssertionError("Aucune case couverte");
+    }
+}
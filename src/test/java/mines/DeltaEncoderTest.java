@@ -0,0 +1,124 @@
+package mines;
+
+import static mines.DeltaEncoder.CELL_COVERED;
+import static mines.DeltaEncoder.CELL_FLAGGED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class DeltaEncoderTest {
+
+    /**
+     * Un client qui applique l'image puis chaque delta voit exactement la
+     * partie du serveur ; un spectateur arrivé en cours de route aussi
+     */
+    @Test
+    public void decoderFollowsTheGame() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (long seed = 0; seed < 10; seed++) {
+            BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+            engine.newGame(seed);
+            MultiplayerGame game = new MultiplayerGame(engine, 3);
+            DeltaEncoder encoder = new DeltaEncoder(game);
+            DeltaDecoder client = new DeltaDecoder();
+            assertFalse(client.isReady());
+            client.apply(encoder.keyframe());
+            assertState(game, client);
+
+            for (int move = 0; engine.isInGame() && move < 200; move++) {
+                int cell = random.nextInt(engine.getAllCells());
+                if (engine.getCell(cell) == BoardEngine.COVERED_MINE_CELL && random.nextInt(4) != 0) {
+                    engine.mark(cell);
+                } else if (engine.isMarked(cell)) {
+                    engine.unmark(cell);
+                } else {
+                    game.reveal(cell);
+                }
+                client.apply(encoder.delta());
+                assertEquals(encoder.getSequence(), client.getSequence());
+                assertState(game, client);
+
+                if (move == 50) {
+                    DeltaDecoder spectator = new DeltaDecoder();
+                    spectator.apply(encoder.keyframe());
+                    assertState(game, spectator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grille renouvelée : le delta est une image complète
+     */
+    @Test
+    public void newGridSendsKeyframe() {
+        BoardEngine engine = new BoardEngine(BoardConfig.INTERMEDIATE);
+        engine.newGame(1);
+        MultiplayerGame game = new MultiplayerGame(engine, 2);
+        DeltaEncoder encoder = new DeltaEncoder(game);
+        DeltaDecoder client = new DeltaDecoder();
+        client.apply(encoder.keyframe());
+
+        engine.newGame(2);
+        game.reset();
+        ByteBuffer message = encoder.delta();
+        assertEquals(DeltaEncoder.KEYFRAME, message.get(message.position()));
+        client.apply(message);
+        assertState(game, client);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deltaOutOfSequenceIsRejected() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGame(1, 40);
+        MultiplayerGame game = new MultiplayerGame(engine, 2);
+        DeltaEncoder encoder = new DeltaEncoder(game);
+        DeltaDecoder client = new DeltaDecoder();
+        client.apply(encoder.keyframe());
+
+        game.reveal(40);
+        encoder.delta();
+        game.reveal(0);
+        client.apply(encoder.delta());
+    }
+
+    @Test
+    public void varintsRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        for (int value : values)
+            DeltaEncoder.putVarint(buffer, DeltaEncoder.zigzag(value));
+        buffer.flip();
+        for (int value : values)
+            assertEquals(value, DeltaEncoder.unzigzag(DeltaEncoder.getVarint(buffer)));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    private static void assertState(MultiplayerGame game, DeltaDecoder client) {
+        BoardEngine engine = game.getEngine();
+        assertTrue(client.isReady());
+        assertEquals(engine.getRows(), client.getRows());
+        assertEquals(engine.getCols(), client.getCols());
+        assertEquals(game.getPlayerCount(), client.getPlayerCount());
+        assertEquals(game.getCurrentPlayer(), client.getCurrentPlayer());
+        assertEquals(engine.getMinesLeft(), client.getMinesLeft());
+        byte state = engine.isWon() ? MatchProtocol.STATE_WON
+                : engine.isLost() ? MatchProtocol.STATE_LOST : MatchProtocol.STATE_PLAYING;
+        assertEquals(state, client.getState());
+        for (int i = 0; i < game.getPlayerCount(); i++)
+            assertEquals(game.getScore(i), client.getScore(i));
+
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            int expected = !engine.isCovered(i) ? engine.getCell(i)
+                    : engine.isMarked(i) ? CELL_FLAGGED : CELL_COVERED;
+            assertEquals("Case " + i, expected, client.getCell(i));
+            assertEquals(expected >= CELL_COVERED, client.isCovered(i));
+            assertEquals("Propriétaire " + i, game.getOwner(i), client.getOwner(i));
+        }
+    }
+}
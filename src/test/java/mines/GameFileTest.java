@@ -0,0 +1,115 @@
+package mines;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GameFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Plateau multijoueur de 10^7 cases : grille, drapeaux, propriétaires,
+     * scores, joueur courant et graine relus à l'identique
+     */
+    @Test
+    public void roundTripTenMillionCells() throws IOException {
+        BoardEngine engine = new BoardEngine(new BoardConfig(2500, 4000, 1_500_000));
+        engine.newGame(42);
+        SplittableRandom random = new SplittableRandom(7);
+        byte[] owners = new byte[engine.getAllCells()];
+        Arrays.fill(owners, (byte) -1);
+        for (int i = 0; i < 20_000; i++) {
+            int position = random.nextInt(engine.getAllCells());
+            if (!engine.isCovered(position))
+                continue;
+            if (engine.getCell(position) == BoardEngine.COVERED_MINE_CELL) {
+                engine.mark(position);
+            } else {
+                engine.reveal(position);
+                owners[position] = (byte) random.nextInt(3);
+            }
+        }
+        int[] scores = {12, -5, 3};
+
+        Path path = folder.getRoot().toPath().resolve("big.mines");
+        new GameFile(engine, owners, scores, 2).save(path);
+        GameFile loaded = GameFile.load(path);
+        BoardEngine copy = loaded.getEngine();
+
+        assertEquals(engine.getConfig(), copy.getConfig());
+        assertEquals(engine.getSeed(), copy.getSeed());
+        assertEquals(engine.getMinesLeft(), copy.getMinesLeft());
+        assertEquals(engine.isInGame(), copy.isInGame());
+        assertEquals(engine.getCoveredSafeCells(), copy.getCoveredSafeCells());
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.getCell(i) != copy.getCell(i))
+                fail("Case " + i + ": " + engine.getCell(i) + " relue " + copy.getCell(i));
+        }
+        assertArrayEquals(owners, loaded.getOwners());
+        assertArrayEquals(scores, loaded.getScores());
+        assertEquals(2, loaded.getCurrentPlayer());
+    }
+
+    /**
+     * Partie sauvée avant le premier clic : les mines sont posées après le
+     * chargement et la partie peut encore être gagnée
+     */
+    @Test
+    public void deferredGameCanBeWonAfterLoad() throws IOException {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGameDeferred(3);
+        engine.mark(0);
+
+        Path path = folder.getRoot().toPath().resolve("deferred.mines");
+        new GameFile(engine).save(path);
+        BoardEngine copy = GameFile.load(path).getEngine();
+
+        assertTrue(copy.isDeferred());
+        assertEquals(engine.getCoveredSafeCells(), copy.getCoveredSafeCells());
+        assertEquals(engine.getMinesLeft(), copy.getMinesLeft());
+
+        copy.reveal(40);
+        for (int i = 0; i < copy.getAllCells(); i++) {
+            int cell = copy.getCell(i) % BoardEngine.MARK_FOR_CELL;
+            if (copy.isCovered(i) && cell != BoardEngine.MINE_CELL) {
+                if (copy.isMarked(i))
+                    copy.unmark(i);
+                copy.reveal(i);
+            }
+        }
+        assertFalse(copy.isInGame());
+        assertTrue(copy.isWon());
+    }
+
+    /**
+     * Nombre de joueurs négatif (octet corrompu) : IOException, pas NegativeArraySizeException
+     */
+    @Test(expected = IOException.class)
+    public void corruptPlayerCountIsRejected() throws IOException {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGame(1);
+        Path path = folder.getRoot().toPath().resolve("corrupt.mines");
+        new GameFile(engine).save(path);
+
+        // Octet du nombre de joueurs, juste après le joueur courant (octet 31)
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(32);
+            file.write(0xF0);
+        }
+        GameFile.load(path);
+    }
+}
@@ -0,0 +1,230 @@
+package mines;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import javax.swing.JLabel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GameReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Parties solo et multijoueur journalisées puis rejouées : même grille,
+     * mêmes propriétaires, mêmes scores, coup par coup
+     */
+    @Test
+    public void journaledGamesReplayIdentically() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("moves.mjnl");
+        BoardConfig config = BoardConfig.EXPERT;
+        SplittableRandom random = new SplittableRandom(5);
+        MultiplayerGame[] played = new MultiplayerGame[3];
+        int[][] halfway = new int[played.length][];
+        int[] halfway_move = new int[played.length];
+
+        try (MoveJournal journal = MoveJournal.open(path, config)) {
+            int[] modes = {MoveJournal.MODE_DEFERRED, MoveJournal.MODE_RANDOM, MoveJournal.MODE_RANDOM};
+            int[] players = {1, 1, 3};
+            for (int g = 0; g < played.length; g++) {
+                BoardEngine engine = new BoardEngine(config);
+                long seed = random.nextLong();
+                if (modes[g] == MoveJournal.MODE_DEFERRED)
+                    engine.newGameDeferred(seed);
+                else
+                    engine.newGame(seed);
+                MultiplayerGame game = new MultiplayerGame(engine, players[g]);
+                journal.startGame(modes[g], seed, players[g]);
+
+                int moves = 0;
+                while (engine.isInGame() && moves < 300) {
+                    int cell = random.nextInt(engine.getAllCells());
+                    int player = game.getCurrentPlayer();
+                    if (random.nextInt(3) == 0) {
+                        journal.recordMove(MoveJournal.BUTTON_RIGHT, cell, player);
+                        if (engine.isCovered(cell)) {
+                            if (engine.isMarked(cell))
+                                engine.unmark(cell);
+                            else
+                                engine.mark(cell);
+                        }
+                    } else {
+                        journal.recordMove(MoveJournal.BUTTON_LEFT, cell, player);
+                        if (!engine.isMarked(cell))
+                            game.reveal(cell);
+                    }
+                    moves++;
+                    if (moves == 20) {
+                        halfway[g] = BoardEngineTest.cells(engine);
+                        halfway_move[g] = moves;
+                    }
+                }
+                played[g] = game;
+            }
+        }
+
+        GameReplay replay = GameReplay.load(path);
+        assertEquals(config, replay.getConfig());
+        assertEquals(played.length, replay.getGameCount());
+        for (int g = 0; g < played.length; g++) {
+            MultiplayerGame game = replay.replay(g);
+            assertEquals(played[g].getPlayerCount(), replay.getPlayerCount(g));
+            assertArrayEquals(BoardEngineTest.cells(played[g].getEngine()), BoardEngineTest.cells(game.getEngine()));
+            assertArrayEquals(played[g].getOwners(), game.getOwners());
+            assertArrayEquals(played[g].getScores(), game.getScores());
+            assertEquals(played[g].getEngine().getSeed(), game.getEngine().getSeed());
+            if (halfway[g] != null)
+                assertArrayEquals(halfway[g], BoardEngineTest.cells(replay.seek(g, halfway_move[g]).getEngine()));
+        }
+    }
+
+    /**
+     * Parties sans devinette jouées à la souris sur un Board journalisé :
+     * graine et mode enregistrés suffisent à retrouver chaque grille
+     */
+    @Test
+    public void noGuessBoardGamesReplayIdentically() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("noguess.mjnl");
+        BoardConfig config = BoardConfig.INTERMEDIATE;
+        Board board = new Board(new JLabel(), config);
+        int[][] played = new int[3][];
+        int[] modes = new int[played.length];
+
+        try (MoveJournal journal = MoveJournal.open(path, config)) {
+            board.setNoGuess(true);
+            board.setJournal(journal);
+            for (int g = 0; g < played.length; g++) {
+                if (g > 0)
+                    board.newGame();
+                BoardEngine engine = board.getEngine();
+                assertFalse(engine.isCovered(NoGuessGenerator.startCell(config)));
+                modes[g] = board.isUnverified() ? MoveJournal.MODE_OPENED : MoveJournal.MODE_NO_GUESS;
+
+                // Coups du solveur, un drapeau de temps en temps
+                Solver solver = new Solver(engine);
+                for (int m = 0; m < 40 && engine.isInGame(); m++) {
+                    Solver.Move move = solver.hint();
+                    click(board, move.getPosition(), m % 7 == 6 ? MouseEvent.BUTTON3 : MouseEvent.BUTTON1);
+                }
+                played[g] = BoardEngineTest.cells(engine);
+            }
+        }
+
+        GameReplay replay = GameReplay.load(path);
+        assertEquals(played.length, replay.getGameCount());
+        for (int g = 0; g < played.length; g++) {
+            assertEquals(modes[g], replay.getMode(g));
+            assertTrue(replay.getMoveCount(g) > 0);
+            assertArrayEquals("Partie " + g, played[g], BoardEngineTest.cells(replay.replay(g).getEngine()));
+        }
+    }
+
+    /**
+     * Au-delà de SNAPSHOT_INTERVAL coups, seek repart de l'image la plus proche
+     */
+    @Test
+    public void seekUsesSnapshots() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("long.mjnl");
+        BoardConfig config = BoardConfig.INTERMEDIATE;
+        BoardEngine engine = new BoardEngine(config);
+        engine.newGame(12);
+        int moves = GameReplay.SNAPSHOT_INTERVAL * 2 + 10;
+        int[][] states = new int[moves + 1][];
+        states[0] = BoardEngineTest.cells(engine);
+
+        try (MoveJournal journal = MoveJournal.open(path, config)) {
+            journal.startGame(MoveJournal.MODE_RANDOM, 12, 1);
+            // Drapeau posé puis retiré sur des cases qui restent couvertes
+            for (int m = 0; m < moves; m++) {
+                int cell = m % config.getAllCells();
+                journal.recordMove(MoveJournal.BUTTON_RIGHT, cell, 0);
+                if (engine.isMarked(cell))
+                    engine.unmark(cell);
+                else
+                    engine.mark(cell);
+                states[m + 1] = BoardEngineTest.cells(engine);
+            }
+        }
+
+        GameReplay replay = GameReplay.load(path);
+        assertEquals(moves, replay.getMoveCount(0));
+        assertEquals(moves, replay.getTotalMoveCount());
+        for (int m : new int[] {0, 1, GameReplay.SNAPSHOT_INTERVAL, GameReplay.SNAPSHOT_INTERVAL + 3, moves})
+            assertArrayEquals("Coup " + m, states[m], BoardEngineTest.cells(replay.seek(0, m).getEngine()));
+        try {
+            replay.seek(0, moves + 1);
+            fail("Coup hors de la partie");
+        } catch (IndexOutOfBoundsException e) {
+            // attendu
+        }
+    }
+
+    /**
+     * Un enregistrement incomplet est tronqué à la réouverture ; les coups
+     * suivant un chargement ne sont pas rejoués
+     */
+    @Test
+    public void reopenTruncatesAndLoadedGamesAreSkipped() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("append.mjnl");
+        BoardConfig config = BoardConfig.BEGINNER;
+        try (MoveJournal journal = MoveJournal.open(path, config)) {
+            journal.startGame(MoveJournal.MODE_RANDOM, 1, 1);
+            journal.recordMove(MoveJournal.BUTTON_RIGHT, 3, 0);
+            journal.gameLoaded();
+            journal.recordMove(MoveJournal.BUTTON_LEFT, 4, 0);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {MoveJournal.RECORD_GAME, 1, 1}));
+        }
+
+        try (MoveJournal journal = MoveJournal.open(path, config)) {
+            journal.startGame(MoveJournal.MODE_DEFERRED, 2, 1);
+            journal.recordMove(MoveJournal.BUTTON_LEFT, 40, 0);
+        }
+
+        GameReplay replay = GameReplay.load(path);
+        assertEquals(2, replay.getGameCount());
+        assertEquals(1, replay.getMoveCount(0));
+        assertEquals(MoveJournal.MODE_DEFERRED, replay.getMode(1));
+        assertEquals(2, replay.getSeed(1));
+        assertEquals(1, replay.getMoveCount(1));
+
+        try {
+            MoveJournal.open(path, BoardConfig.EXPERT).close();
+            fail("Journal d'une autre configuration accepté");
+        } catch (IOException e) {
+            // attendu
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownButton() throws IOException {
+        try (MoveJournal journal = MoveJournal.open(folder.newFile("bad.mjnl").toPath(), BoardConfig.BEGINNER)) {
+            journal.recordMove(2, 0, 0);
+        }
+    }
+
+    private static void click(Board board, int position, int button) {
+        int row = position / board.getEngine().getCols();
+        int col = position % board.getEngine().getCols();
+        Rectangle cell = board.getRenderer().getCellBounds(row, row, col, col);
+        board.dispatchEvent(new MouseEvent(board, MouseEvent.MOUSE_PRESSED, 0, 0,
+                cell.x + cell.width / 2, cell.y + cell.height / 2, 1, false, button));
+    }
+}
@@ -0,0 +1,134 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InfiniteBoardTest {
+
+    private static final int SEED = 17;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Chiffres cohérents avec les mines voisines, y compris à cheval sur
+     * plusieurs blocs et du côté des coordonnées négatives
+     */
+    @Test
+    public void countsMatchAcrossChunks() throws IOException {
+        try (InfiniteBoard board = new InfiniteBoard(SEED, folder.getRoot().toPath())) {
+            int span = InfiniteBoard.CHUNK_SIZE + 2;
+            for (int y = -span; y <= span; y++) {
+                for (int x = -span; x <= span; x++) {
+                    int value = board.getCell(x, y) % BoardEngine.COVER_FOR_CELL;
+                    if (value == BoardEngine.MINE_CELL)
+                        continue;
+                    int mines = 0;
+                    for (int ny = y - 1; ny <= y + 1; ny++) {
+                        for (int nx = x - 1; nx <= x + 1; nx++) {
+                            if (board.getCell(nx, ny) % BoardEngine.COVER_FOR_CELL == BoardEngine.MINE_CELL)
+                                mines++;
+                        }
+                    }
+                    assertEquals("Case " + x + "," + y, mines, value);
+                }
+            }
+            assertTrue(board.getChunksCreated() >= 9);
+        }
+    }
+
+    /**
+     * L'origine est toujours une ouverture ; une mine termine la partie
+     */
+    @Test
+    public void originOpensAndMineLoses() throws IOException {
+        try (InfiniteBoard board = new InfiniteBoard(SEED, folder.getRoot().toPath())) {
+            assertTrue(board.reveal(0, 0));
+            assertEquals(BoardEngine.EMPTY_CELL, board.getCell(0, 0));
+            assertTrue(board.getRevealedCount() > 1);
+            assertFalse(board.reveal(0, 0));
+
+            int[] mine = findCoveredMine(board);
+            assertTrue(board.toggleFlag(mine[0], mine[1]));
+            assertTrue(board.isMarked(mine[0], mine[1]));
+            assertFalse(board.reveal(mine[0], mine[1]));
+            assertTrue(board.toggleFlag(mine[0], mine[1]));
+            assertEquals(0, board.getFlagCount());
+
+            assertTrue(board.reveal(mine[0], mine[1]));
+            assertTrue(board.isLost());
+            assertFalse(board.isInGame());
+            assertFalse(board.toggleFlag(0, 5000));
+        }
+    }
+
+    /**
+     * Au-delà du cache, les blocs modifiés sont écrits puis relus à l'identique,
+     * et la partie rouverte retrouve son état
+     */
+    @Test
+    public void evictedChunksAndReopenedBoardsKeepTheirState() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        int[] mine;
+        long revealed;
+        try (InfiniteBoard board = new InfiniteBoard(SEED, InfiniteBoard.MIN_MINES_PER_CHUNK, 16, directory)) {
+            board.reveal(0, 0);
+            mine = findCoveredMine(board);
+            board.toggleFlag(mine[0], mine[1]);
+            revealed = board.getRevealedCount();
+
+            for (int k = 1; k <= 40; k++)
+                board.getCell(k * InfiniteBoard.CHUNK_SIZE * 3, 0);
+            assertTrue(board.getChunksEvicted() > 0);
+            assertTrue(board.getLoadedChunkCount() <= 16);
+
+            assertEquals(BoardEngine.EMPTY_CELL, board.getCell(0, 0));
+            assertTrue(board.isMarked(mine[0], mine[1]));
+            assertTrue(board.getChunksLoaded() > 0);
+        }
+
+        try (InfiniteBoard board = new InfiniteBoard(SEED, InfiniteBoard.MIN_MINES_PER_CHUNK, 16, directory)) {
+            assertEquals(revealed, board.getRevealedCount());
+            assertEquals(1, board.getFlagCount());
+            assertTrue(board.isInGame());
+            assertEquals(BoardEngine.EMPTY_CELL, board.getCell(0, 0));
+            assertTrue(board.isMarked(mine[0], mine[1]));
+        }
+
+        try {
+            new InfiniteBoard(SEED + 1, InfiniteBoard.MIN_MINES_PER_CHUNK, 16, directory);
+            fail("Partie d'une autre graine acceptée");
+        } catch (IOException e) {
+            // attendu
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooFewMines() throws IOException {
+        new InfiniteBoard(SEED, InfiniteBoard.MIN_MINES_PER_CHUNK - 1, 16, folder.getRoot().toPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTinyCache() throws IOException {
+        new InfiniteBoard(SEED, InfiniteBoard.DEFAULT_MINES_PER_CHUNK, 8, folder.getRoot().toPath());
+    }
+
+    private static int[] findCoveredMine(InfiniteBoard board) {
+        for (int y = 0; y < InfiniteBoard.CHUNK_SIZE; y++) {
+            for (int x = 0; x < InfiniteBoard.CHUNK_SIZE; x++) {
+                if (board.getCell(x, y) == BoardEngine.COVERED_MINE_CELL)
+                    return new int[] {x, y};
+            }
+        }
+        throw new AssertionError("Aucune mine");
+    }
+}
@@ -0,0 +1,75 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class NoGuessGeneratorTest {
+
+    /**
+     * Une grille vérifiée se résout entière sans deviner, depuis la case de départ
+     */
+    @Test
+    public void validatedBoardIsSolvedWithoutGuessing() {
+        NoGuessGenerator generator = new NoGuessGenerator(BoardConfig.INTERMEDIATE, 2, 10_000);
+        try {
+            BoardEngine engine = new BoardEngine(BoardConfig.INTERMEDIATE);
+            for (int k = 0; k < 3; k++) {
+                assertTrue(generator.generate(engine));
+                assertFalse(engine.isCovered(generator.getStartCell()));
+                assertEquals(BoardEngine.EMPTY_CELL, engine.getCell(generator.getStartCell()));
+
+                Solver solver = new Solver(engine);
+                assertTrue(solver.solve(false));
+                assertEquals(0, solver.getGuessCount());
+            }
+            assertEquals(3, generator.getGeneratedCount());
+            assertEquals(0, generator.getFallbackCount());
+            assertTrue(generator.getCandidateCount() >= 3);
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    /**
+     * Budget dépassé : grille ordinaire ouverte au centre, signalée par false
+     */
+    @Test
+    public void exhaustedBudgetFallsBack() {
+        BoardConfig config = new BoardConfig(16, 30, 300);
+        NoGuessGenerator generator = new NoGuessGenerator(config, 1, 0);
+        try {
+            BoardEngine engine = new BoardEngine(config);
+            assertFalse(generator.generate(engine));
+            assertFalse(engine.isCovered(generator.getStartCell()));
+            assertTrue(engine.isInGame());
+            assertEquals(1, generator.getFallbackCount());
+            assertEquals(0, generator.getGeneratedCount());
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void startCellIsTheCentre() {
+        assertEquals(4 * 9 + 4, NoGuessGenerator.startCell(BoardConfig.BEGINNER));
+        assertEquals(8 * 30 + 15, NoGuessGenerator.startCell(BoardConfig.EXPERT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnotherConfiguration() {
+        NoGuessGenerator generator = new NoGuessGenerator(BoardConfig.BEGINNER, 1, 10);
+        try {
+            generator.generate(new BoardEngine(BoardConfig.EXPERT));
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroThreads() {
+        new NoGuessGenerator(BoardConfig.BEGINNER, 0, 10);
+    }
+}
@@ -0,0 +1,156 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ProbabilityCalculatorTest {
+
+    /**
+     * Probabilités identiques à une énumération brute de toutes les grilles
+     * compatibles avec les chiffres visibles
+     */
+    @Test
+    public void matchesBruteForceOnSmallBoards() {
+        BoardConfig config = new BoardConfig(5, 5, 5);
+        BoardEngine engine = new BoardEngine(config);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ProbabilityCalculator calculator = new ProbabilityCalculator(pool);
+            int checked = 0;
+            for (long seed = 0; seed < 30; seed++) {
+                engine.newGame(seed, 12);
+                engine.reveal(12);
+                if (!engine.isInGame())
+                    continue;
+
+                double[] expected = bruteForce(engine);
+                double[] actual = calculator.compute(engine);
+                for (int i = 0; i < config.getAllCells(); i++)
+                    assertEquals("Graine " + seed + ", case " + i, expected[i], actual[i], 1e-9);
+                checked++;
+            }
+            assertTrue(checked > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Sans drapeau, l'espérance du nombre de mines couvertes vaut les mines restantes
+     */
+    @Test
+    public void probabilitiesSumToRemainingMines() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        for (long seed = 0; seed < 10; seed++) {
+            engine.newGame(seed, 0);
+            engine.reveal(0);
+            double[] probability = calculator.compute(engine);
+            double sum = 0;
+            for (int i = 0; i < engine.getAllCells(); i++) {
+                assertTrue(probability[i] >= 0.0 && probability[i] <= 1.0 + 1e-12);
+                if (!engine.isCovered(i))
+                    assertEquals(0.0, probability[i], 0.0);
+                sum += probability[i];
+            }
+            assertEquals(engine.getMinesLeft(), sum, 1e-6);
+        }
+    }
+
+    @Test
+    public void flagsCountAsMines() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGame(3, 40);
+        engine.reveal(40);
+        int flag = -1;
+        for (int i = 0; i < engine.getAllCells() && flag < 0; i++) {
+            if (engine.isCovered(i))
+                flag = i;
+        }
+        engine.mark(flag);
+        double[] probability = new ProbabilityCalculator().compute(engine);
+        assertEquals(1.0, probability[flag], 0.0);
+    }
+
+    @Test
+    public void interruptedCallerCancels() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(4, 0);
+        engine.reveal(0);
+
+        Thread.currentThread().interrupt();
+        try {
+            new ProbabilityCalculator().compute(engine);
+            fail("Calcul non annulé");
+        } catch (CancellationException e) {
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Énumère toutes les façons de placer les mines restantes sur les cases
+     * couvertes, en gardant celles qui respectent chaque chiffre découvert
+     */
+    private static double[] bruteForce(BoardEngine engine) {
+        int all_cells = engine.getAllCells();
+        int[] covered = new int[all_cells];
+        int count = 0;
+        for (int i = 0; i < all_cells; i++) {
+            if (engine.isCovered(i))
+                covered[count++] = i;
+        }
+        boolean[] mine = new boolean[all_cells];
+        double[] hits = new double[all_cells];
+        long total = place(engine, covered, count, 0, engine.getMinesLeft(), mine, hits);
+
+        double[] probability = new double[all_cells];
+        for (int i = 0; i < all_cells; i++)
+            probability[i] = hits[i] / total;
+        return probability;
+    }
+
+    private static long place(BoardEngine engine, int[] covered, int count, int from, int left,
+            boolean[] mine, double[] hits) {
+        if (left == 0) {
+            if (!consistent(engine, mine))
+                return 0;
+            for (int i = 0; i < mine.length; i++) {
+                if (mine[i])
+                    hits[i]++;
+            }
+            return 1;
+        }
+        long total = 0;
+        for (int k = from; k <= count - left; k++) {
+            mine[covered[k]] = true;
+            total += place(engine, covered, count, k + 1, left - 1, mine, hits);
+            mine[covered[k]] = false;
+        }
+        return total;
+    }
+
+    private static boolean consistent(BoardEngine engine, boolean[] mine) {
+        int[] neighbours = new int[8];
+        for (int i = 0; i < engine.getAllCells(); i++) {
+            if (engine.isCovered(i))
+                continue;
+            int n = ProbabilityCalculator.neighbours(engine, i, neighbours);
+            int mines = 0;
+            for (int k = 0; k < n; k++) {
+                if (mine[neighbours[k]])
+                    mines++;
+            }
+            if (mines != engine.getCell(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,132 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+public class SimultaneousGameTest {
+
+    private static final int THREADS = 64;
+    private static final int GAMES = 5;
+
+    /**
+     * 64 threads cliquent (et posent des drapeaux) sur toute la grille en même
+     * temps jusqu'à la victoire : aucune case n'est perdue ni prise deux fois,
+     * les scores correspondent aux cases gagnées par chaque thread
+     */
+    @Test
+    public void concurrentPlayersNeverLoseOrDoubleClaimCells() throws Exception {
+        for (int g = 0; g < GAMES; g++) {
+            SimultaneousGame game = new SimultaneousGame(BoardConfig.EXPERT, THREADS, g);
+            Player[] players = new Player[THREADS];
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            for (int p = 0; p < THREADS; p++)
+                players[p] = new Player(game, p, start);
+
+            for (Player player : players)
+                player.start();
+            for (Player player : players)
+                player.join();
+            for (Player player : players) {
+                if (player.failure != null)
+                    throw new AssertionError("Joueur " + player.index, player.failure);
+            }
+            verify(game, players);
+        }
+    }
+
+    private static void verify(SimultaneousGame game, Player[] players) {
+        assertTrue("Partie non gagnée", game.isWon());
+        assertEquals(0, game.getCoveredSafeCells());
+
+        int[] owned = new int[players.length];
+        int flagged = 0;
+        for (int i = 0; i < game.getAllCells(); i++) {
+            int state = game.getState(i);
+            if (state >= 0)
+                owned[state]++;
+            else if (state == SimultaneousGame.FLAGGED)
+                flagged++;
+            if (state < 0)
+                assertEquals("Case sûre " + i + " encore couverte", BoardEngine.MINE_CELL, game.getValue(i));
+        }
+
+        for (Player player : players) {
+            assertEquals("Cases du joueur " + player.index, player.claimed, owned[player.index]);
+            assertEquals("Score du joueur " + player.index, player.score, game.getScore(player.index));
+        }
+        assertEquals(game.getConfig().getMines() - flagged, game.getFlagsLeft());
+    }
+
+    /**
+     * Parcourt toute la grille dans un ordre qui lui est propre, en recommençant
+     * tant que la partie n'est pas gagnée ; un clic sur 16 est une paire
+     * pose/retrait de drapeau
+     */
+    private static final class Player extends Thread {
+        final SimultaneousGame game;
+        final int index;
+        final CyclicBarrier start;
+        int claimed;
+        int score;
+        Throwable failure;
+
+        Player(SimultaneousGame game, int index, CyclicBarrier start) {
+            this.game = game;
+            this.index = index;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                play();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private void play() throws Exception {
+            int cells = game.getAllCells();
+            SplittableRandom random = new SplittableRandom(index * 31L + cells);
+            int step = coprimeStep(cells, random);
+            start.await();
+
+            while (!game.isWon()) {
+                int position = random.nextInt(cells);
+                for (int k = 0; k < cells && !game.isWon(); k++, position = (int) ((position + (long) step) % cells)) {
+                    if ((k & 15) == 0) {
+                        if (game.toggleFlag(position))
+                            game.toggleFlag(position);
+                        continue;
+                    }
+                    int won = game.reveal(index, position);
+                    if (won == 0)
+                        continue;
+                    claimed += won;
+                    int value = game.getValue(position);
+                    if (value == BoardEngine.MINE_CELL)
+                        score += MultiplayerGame.MINE_PENALTY;
+                    else
+                        score += (value == BoardEngine.EMPTY_CELL) ? won : value + won;
+                }
+            }
+        }
+
+        private static int coprimeStep(int cells, SplittableRandom random) {
+            while (true) {
+                int step = 1 + random.nextInt(cells - 1);
+                if (gcd(step, cells) == 1)
+                    return step;
+            }
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
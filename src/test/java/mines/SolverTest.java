@@ -0,0 +1,190 @@
+package mines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SolverTest {
+
+    /**
+     * Une case annoncée sûre n'est jamais une mine, tout au long de la partie
+     */
+    @Test
+    public void safeHintsAreNeverMines() {
+        BoardEngine engine = new BoardEngine(BoardConfig.INTERMEDIATE);
+        int start = NoGuessGenerator.startCell(BoardConfig.INTERMEDIATE);
+        int safe_hints = 0;
+        for (long seed = 0; seed < 40; seed++) {
+            engine.newGame(seed, start);
+            engine.reveal(start);
+            Solver solver = new Solver(engine);
+            while (engine.isInGame()) {
+                Solver.Move move = solver.hint();
+                assertNotNull(move);
+                assertTrue(engine.isCovered(move.getPosition()));
+                assertFalse(engine.isMarked(move.getPosition()));
+                if (move.isSafe()) {
+                    assertEquals(0.0, move.getMineProbability(), 0.0);
+                    assertNotEquals("Graine " + seed, BoardEngine.COVERED_MINE_CELL, engine.getCell(move.getPosition()));
+                    safe_hints++;
+                } else {
+                    assertTrue(move.getMineProbability() >= 0.0 && move.getMineProbability() <= 1.0);
+                }
+                engine.reveal(move.getPosition());
+            }
+        }
+        assertTrue(safe_hints > 0);
+    }
+
+    /**
+     * Un drapeau faux (case sans mine au bord de la zone ouverte) ne doit
+     * jamais faire annoncer une mine comme case sûre
+     */
+    @Test
+    public void wrongFlagNeverGivesAnUnsafeHint() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        int start = NoGuessGenerator.startCell(BoardConfig.EXPERT);
+        int checked = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            engine.newGame(seed, start);
+            engine.reveal(start);
+            for (int flag = 0; flag < engine.getAllCells(); flag++) {
+                if (!engine.isCovered(flag) || engine.getCell(flag) == BoardEngine.COVERED_MINE_CELL
+                        || !nextToNumber(engine, flag))
+                    continue;
+                engine.mark(flag);
+                Solver.Move move = new Solver(engine).hint();
+                engine.unmark(flag);
+
+                assertNotNull(move);
+                assertFalse(engine.isMarked(move.getPosition()));
+                if (move.isSafe())
+                    assertNotEquals("Graine " + seed + ", drapeau " + flag,
+                            BoardEngine.COVERED_MINE_CELL, engine.getCell(move.getPosition()));
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    /**
+     * Avec le droit de deviner, chaque partie va jusqu'au bout
+     */
+    @Test
+    public void solveWithGuessesFinishesEveryGame() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        int won = 0;
+        for (long seed = 0; seed < 30; seed++) {
+            engine.newGame(seed, 0);
+            engine.reveal(0);
+            Solver solver = new Solver(engine);
+            boolean result = solver.solve(true);
+            assertFalse(engine.isInGame());
+            assertEquals(engine.isWon(), result);
+            if (result)
+                won++;
+            assertTrue(solver.getGuessCount() >= 0);
+        }
+        assertTrue("Parties gagnées: " + won, won > 0);
+    }
+
+    /**
+     * Sans droit de deviner, le solveur ne perd jamais : il s'arrête bloqué
+     */
+    @Test
+    public void solveWithoutGuessNeverLoses() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        for (long seed = 0; seed < 30; seed++) {
+            engine.newGame(seed, 0);
+            engine.reveal(0);
+            Solver solver = new Solver(engine);
+            boolean result = solver.solve(false);
+            assertFalse(engine.isLost());
+            assertEquals(0, solver.getGuessCount());
+            assertEquals(result, engine.isWon());
+
+            double[] probability = solver.getProbabilities();
+            if (probability != null) {
+                for (double p : probability)
+                    assertTrue(p >= 0.0 && p <= 1.0);
+            }
+        }
+    }
+
+    /**
+     * Un solveur réutilisé sur d'autres parties donne les mêmes indices
+     * qu'un solveur neuf
+     */
+    @Test
+    public void reusedSolverGivesTheSameHints() {
+        int start = NoGuessGenerator.startCell(BoardConfig.EXPERT);
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        Solver reused = new Solver(new BoardEngine(BoardConfig.BEGINNER));
+        for (long seed = 0; seed < 20; seed++) {
+            engine.newGame(seed, start);
+            engine.reveal(start);
+            for (int move = 0; move < 10 && engine.isInGame(); move++) {
+                reused.setEngine(engine);
+                Solver.Move expected = new Solver(engine).hint();
+                Solver.Move actual = reused.hint();
+                assertEquals(expected.getPosition(), actual.getPosition());
+                assertEquals(expected.isSafe(), actual.isSafe());
+                assertEquals(expected.getMineProbability(), actual.getMineProbability(), 0.0);
+                engine.reveal(actual.getPosition());
+            }
+        }
+        assertEquals(engine, reused.getEngine());
+    }
+
+    @Test
+    public void deferredGameHintsTheCentre() {
+        BoardEngine engine = new BoardEngine(BoardConfig.BEGINNER);
+        engine.newGameDeferred(1);
+        Solver solver = new Solver(engine);
+        Solver.Move move = solver.hint();
+        assertEquals(40, move.getPosition());
+        assertTrue(move.isSafe());
+
+        engine.mark(40);
+        move = solver.hint();
+        assertNotEquals(40, move.getPosition());
+        assertTrue(move.isSafe());
+    }
+
+    /**
+     * Un thread interrompu abandonne sans jouer et garde son indicateur
+     */
+    @Test
+    public void interruptedSolveGivesUp() {
+        BoardEngine engine = new BoardEngine(BoardConfig.EXPERT);
+        engine.newGame(2, 0);
+        engine.reveal(0);
+        int covered = engine.getCoveredSafeCells();
+
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(new Solver(engine).solve(true));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(covered, engine.getCoveredSafeCells());
+    }
+
+    private static boolean nextToNumber(BoardEngine engine, int cell) {
+        int cols = engine.getCols();
+        int row = cell / cols;
+        int col = cell % cols;
+        for (int r = Math.max(0, row - 1); r <= Math.min(engine.getRows() - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                if (!engine.isCovered(r * cols + c))
+                    return true;
+            }
+        }
+        return false;
+    }
+}